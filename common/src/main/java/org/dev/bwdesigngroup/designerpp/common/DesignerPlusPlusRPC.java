@@ -12,4 +12,79 @@ public interface DesignerPlusPlusRPC {
 	
 	JsonObject getCSSData();
 
+	/**
+	 * Returns only the CSS data that changed since the given version.
+	 * <p>
+	 * The result always contains "success" and the current "version". If the version is current, "unchanged" is
+	 * true. Otherwise "full" tells whether "themes" is the complete tree (the version was unknown to the gateway) or a
+	 * delta, in which case "themes" holds only the added or changed files of each theme, "removedFiles" maps theme
+	 * names to the files that were removed, and "removedThemes" lists the themes that were removed. "replacedThemes"
+	 * lists the themes that were added since that version, whose "themes" entry is complete and replaces any copy
+	 * the caller has, e.g. from before the theme was removed and added again.
+	 * 
+	 * @param version The version of the CSS data the caller already has, or 0 if it has none.
+	 * @return A JsonObject describing the changes since that version.
+	 */
+	JsonObject getCSSDataSince(long version);
+
+	/**
+	 * Same as {@link #getCSSDataSince(long)}, but encoded with {@link ThemeDataCodec} so that the variable names and
+	 * values shared between themes are only sent once.
+	 * 
+	 * @param version The version of the CSS data the caller already has, or 0 if it has none.
+	 * @return The encoded response, to be decoded with {@link ThemeDataCodec#decode(byte[])}.
+	 */
+	byte[] getCompactCSSDataSince(long version);
+
+	/**
+	 * Returns a summary of every theme without its variables. "themes" maps each theme name to an object with its
+	 * "files" count, "variables" count and the "version" in which it last changed. "defaultTheme" is the theme the
+	 * project's Perspective sessions start with.
+	 * 
+	 * @param projectName The name of the project the designer has open.
+	 * @return A JsonObject containing the theme index.
+	 */
+	JsonObject getThemeIndex(String projectName);
+
+	/**
+	 * Returns the variables of a single theme: its "theme" data and "resolved" variables, in the same shape as one
+	 * entry of {@link #getCSSData()}, and the "themeVersion" in which it last changed.
+	 * 
+	 * @param themeName The name of the theme.
+	 * @return A JsonObject containing the theme's variables.
+	 */
+	JsonObject getTheme(String themeName);
+
+	/**
+	 * Returns every reference to a CSS variable from the Perspective views and style classes of all projects. Each
+	 * entry of "usages" has the "project", the "type" ("view" or "style-class"), the resource "path", the "component"
+	 * path within a view if any, and the "property" holding the reference. "indexing" is true while the gateway is
+	 * still building its usage index, in which case the usages may be incomplete.
+	 * 
+	 * @param variableName The variable name, with or without the leading dashes.
+	 * @return A JsonObject containing the usages of the variable.
+	 */
+	JsonObject getVariableUsages(String variableName);
+
+	/**
+	 * Compares the variables of two themes. "added" and "removed" list the variables only in the compare or base
+	 * theme, "changed" lists the variables whose resolved values differ, "equivalent" lists the variables whose raw
+	 * values differ but resolve to the same value or color, and "unchanged" counts the rest.
+	 * 
+	 * @param baseTheme The name of the base theme.
+	 * @param compareTheme The name of the theme compared against the base.
+	 * @return A JsonObject containing the differences between the two themes.
+	 */
+	JsonObject compareThemes(String baseTheme, String compareTheme);
+
+	/**
+	 * Finds the variables, across every theme, whose colors look closest to the given color. Colors are compared in
+	 * OKLab, so the distance follows how different the colors look rather than how different their RGB values are.
+	 * 
+	 * @param color The color to look for, e.g. "#1e88e5" or "rgb(30, 136, 229)".
+	 * @param count The maximum number of variables to return.
+	 * @return A JsonObject containing the parsed "query" color and the closest variables as "matches", nearest first.
+	 */
+	JsonObject findNearestColors(String color, int count);
+
 }
@@ -0,0 +1,294 @@
+package org.dev.bwdesigngroup.designerpp.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonNull;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+
+/**
+ * ThemeDataCodec converts theme data between its JSON model and a compact binary form for the RPC layer.
+ * <p>
+ * Every object key and string value is written once into a shared string table, ordered so the most frequent
+ * strings get the smallest indexes, and the tree refers to strings by their varint-encoded index. Objects whose
+ * values are all strings, such as the variables of a CSS file, are written as a flat run of (name, value) index
+ * pairs. Since the same variable names and many of the same values appear in every theme, the payload shrinks by
+ * several times compared to the JSON text, and decoding does not need a JSON parser.
+ * <p>
+ * Flat objects, whose members are all strings, numbers, booleans or nulls, are also shared by content. Each one is
+ * numbered in the order it is first written, and every later occurrence of an equal object is written as a reference
+ * to that number. Identical files copied between themes and the resolved values repeated across themes are therefore
+ * sent once, and the decoder hands out the same instance for every reference, so decoded trees must not be modified
+ * in place.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeDataCodec {
+	private static final int MAGIC = 0x44505032; // "DPP2"
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_FALSE = 1;
+	private static final byte TAG_TRUE = 2;
+	private static final byte TAG_LONG = 3;
+	private static final byte TAG_DOUBLE = 4;
+	private static final byte TAG_STRING = 5;
+	private static final byte TAG_ARRAY = 6;
+	private static final byte TAG_OBJECT = 7;
+	private static final byte TAG_STRING_MAP = 8;
+	private static final byte TAG_REF = 9;
+
+	private ThemeDataCodec() {
+	}
+
+	/**
+	 * Encodes a JSON tree into the compact binary form.
+	 *
+	 * @param element The JSON tree to encode.
+	 * @return The encoded bytes.
+	 */
+	public static byte[] encode(JsonElement element) {
+		Map<String, int[]> counts = new HashMap<>();
+		countStrings(element, counts);
+
+		List<String> table = new ArrayList<>(counts.keySet());
+		table.sort((a, b) -> Integer.compare(counts.get(b)[0], counts.get(a)[0]));
+		Map<String, Integer> indexes = new HashMap<>(table.size() * 2);
+		for (int i = 0; i < table.size(); i++) {
+			indexes.put(table.get(i), i);
+		}
+
+		Output out = new Output();
+		out.writeInt(MAGIC);
+		out.writeVarLong(table.size());
+		for (String string : table) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeVarLong(bytes.length);
+			out.write(bytes, 0, bytes.length);
+		}
+		writeNode(element, indexes, new HashMap<>(), out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes bytes produced by {@link #encode(JsonElement)} back into a JSON tree.
+	 *
+	 * @param bytes The encoded bytes.
+	 * @return The decoded JSON tree.
+	 * @throws IllegalArgumentException If the bytes are not a valid encoding.
+	 */
+	public static JsonElement decode(byte[] bytes) {
+		ByteBuffer in = ByteBuffer.wrap(bytes);
+		try {
+			if (in.getInt() != MAGIC) {
+				throw new IllegalArgumentException("Not an encoded theme payload");
+			}
+			String[] table = new String[readLength(in)];
+			for (int i = 0; i < table.length; i++) {
+				int length = readLength(in);
+				table[i] = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+				in.position(in.position() + length);
+			}
+			return readNode(in, table, new ArrayList<>());
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated or corrupt theme payload", e);
+		}
+	}
+
+	private static void countStrings(JsonElement element, Map<String, int[]> counts) {
+		if (element.isJsonObject()) {
+			for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+				counts.computeIfAbsent(member.getKey(), key -> new int[1])[0]++;
+				countStrings(member.getValue(), counts);
+			}
+		} else if (element.isJsonArray()) {
+			for (JsonElement item : element.getAsJsonArray()) {
+				countStrings(item, counts);
+			}
+		} else if (element.isJsonPrimitive() && element.getAsJsonPrimitive().isString()) {
+			counts.computeIfAbsent(element.getAsString(), key -> new int[1])[0]++;
+		}
+	}
+
+	private static void writeNode(JsonElement element, Map<String, Integer> indexes, Map<JsonObject, Integer> shared, Output out) {
+		if (element == null || element.isJsonNull()) {
+			out.write(TAG_NULL);
+		} else if (element.isJsonObject()) {
+			JsonObject object = element.getAsJsonObject();
+			if (isFlat(object)) {
+				Integer ref = shared.putIfAbsent(object, shared.size());
+				if (ref != null) {
+					out.write(TAG_REF);
+					out.writeVarLong(ref);
+					return;
+				}
+			}
+			boolean stringMap = true;
+			for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+				JsonElement value = member.getValue();
+				if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+					stringMap = false;
+					break;
+				}
+			}
+			out.write(stringMap ? TAG_STRING_MAP : TAG_OBJECT);
+			out.writeVarLong(object.size());
+			for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+				out.writeVarLong(indexes.get(member.getKey()));
+				if (stringMap) {
+					out.writeVarLong(indexes.get(member.getValue().getAsString()));
+				} else {
+					writeNode(member.getValue(), indexes, shared, out);
+				}
+			}
+		} else if (element.isJsonArray()) {
+			JsonArray array = element.getAsJsonArray();
+			out.write(TAG_ARRAY);
+			out.writeVarLong(array.size());
+			for (JsonElement item : array) {
+				writeNode(item, indexes, shared, out);
+			}
+		} else {
+			JsonPrimitive primitive = element.getAsJsonPrimitive();
+			if (primitive.isString()) {
+				out.write(TAG_STRING);
+				out.writeVarLong(indexes.get(primitive.getAsString()));
+			} else if (primitive.isBoolean()) {
+				out.write(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+			} else {
+				double value = primitive.getAsDouble();
+				long longValue = primitive.getAsLong();
+				if (value == longValue) {
+					out.write(TAG_LONG);
+					out.writeVarLong((longValue << 1) ^ (longValue >> 63));
+				} else {
+					out.write(TAG_DOUBLE);
+					out.writeLong(Double.doubleToLongBits(value));
+				}
+			}
+		}
+	}
+
+	private static JsonElement readNode(ByteBuffer in, String[] table, List<JsonObject> shared) {
+		byte tag = in.get();
+		switch (tag) {
+			case TAG_NULL:
+				return JsonNull.INSTANCE;
+			case TAG_FALSE:
+				return new JsonPrimitive(false);
+			case TAG_TRUE:
+				return new JsonPrimitive(true);
+			case TAG_LONG: {
+				long zigzag = readVarLong(in);
+				return new JsonPrimitive((zigzag >>> 1) ^ -(zigzag & 1));
+			}
+			case TAG_DOUBLE:
+				return new JsonPrimitive(Double.longBitsToDouble(in.getLong()));
+			case TAG_STRING:
+				return new JsonPrimitive(table[readLength(in)]);
+			case TAG_ARRAY: {
+				int size = readLength(in);
+				JsonArray array = new JsonArray();
+				for (int i = 0; i < size; i++) {
+					array.add(readNode(in, table, shared));
+				}
+				return array;
+			}
+			case TAG_OBJECT:
+			case TAG_STRING_MAP: {
+				int size = readLength(in);
+				JsonObject object = new JsonObject();
+				for (int i = 0; i < size; i++) {
+					String key = table[readLength(in)];
+					if (tag == TAG_STRING_MAP) {
+						object.addProperty(key, table[readLength(in)]);
+					} else {
+						object.add(key, readNode(in, table, shared));
+					}
+				}
+				if (isFlat(object)) {
+					shared.add(object);
+				}
+				return object;
+			}
+			case TAG_REF:
+				return shared.get(readLength(in));
+			default:
+				throw new IllegalArgumentException("Unknown tag " + tag + " in theme payload");
+		}
+	}
+
+	/**
+	 * Checks whether an object can be shared: it has members and none of them is an object or an array. The encoder
+	 * and decoder number exactly the same objects, since the check only depends on what is written.
+	 */
+	private static boolean isFlat(JsonObject object) {
+		if (object.size() == 0) {
+			return false;
+		}
+		for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+			JsonElement value = member.getValue();
+			if (value.isJsonObject() || value.isJsonArray()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int readLength(ByteBuffer in) {
+		long value = readVarLong(in);
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid length in theme payload");
+		}
+		return (int) value;
+	}
+
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint in theme payload");
+	}
+
+	/**
+	 * A growable byte buffer with the primitive writers the codec needs.
+	 */
+	private static class Output extends ByteArrayOutputStream {
+		Output() {
+			super(4096);
+		}
+
+		void writeVarLong(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+	}
+}
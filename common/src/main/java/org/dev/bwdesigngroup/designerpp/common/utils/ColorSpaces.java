@@ -0,0 +1,107 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+/**
+ * ColorSpaces converts packed sRGB colors to and from OKLab, a perceptually uniform color space in which the
+ * Euclidean distance between two colors approximates how different they look, and from CIELab, as used by the CSS
+ * lab() and lch() functions.
+ *
+ * @author Aaron Rai
+ */
+public class ColorSpaces {
+	private static final double LAB_EPSILON = 216.0 / 24389;
+	private static final double LAB_KAPPA = 24389.0 / 27;
+
+	private ColorSpaces() {
+	}
+
+	/**
+	 * Converts a packed ARGB color to OKLab. The alpha channel is ignored.
+	 *
+	 * @param argb The packed ARGB color.
+	 * @param lab The array receiving L, a and b, of length 3 or more.
+	 */
+	public static void argbToOklab(int argb, double[] lab) {
+		double r = srgbToLinear((argb >> 16) & 0xFF);
+		double g = srgbToLinear((argb >> 8) & 0xFF);
+		double b = srgbToLinear(argb & 0xFF);
+
+		double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+		double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+		double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+		lab[0] = 0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s;
+		lab[1] = 1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s;
+		lab[2] = 0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s;
+	}
+
+	/**
+	 * Converts an OKLab color to a packed ARGB color, clipping it to the sRGB gamut.
+	 *
+	 * @param lightness The L component, from 0 to 1.
+	 * @param a The a component.
+	 * @param b The b component.
+	 * @param alpha The alpha, from 0 to 1.
+	 * @return The packed ARGB color.
+	 */
+	public static int oklabToArgb(double lightness, double a, double b, double alpha) {
+		double l = lightness + 0.3963377774 * a + 0.2158037573 * b;
+		double m = lightness - 0.1055613458 * a - 0.0638541728 * b;
+		double s = lightness - 0.0894841775 * a - 1.2914855480 * b;
+		l = l * l * l;
+		m = m * m * m;
+		s = s * s * s;
+
+		int red = linearToSrgb(4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s);
+		int green = linearToSrgb(-1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s);
+		int blue = linearToSrgb(-0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s);
+		return (toByte(alpha) << 24) | (red << 16) | (green << 8) | blue;
+	}
+
+	/**
+	 * Converts a CIELab color with a D50 white point, as defined for CSS, to a packed ARGB color, clipping it to the
+	 * sRGB gamut.
+	 *
+	 * @param lightness The L component, from 0 to 100.
+	 * @param a The a component.
+	 * @param b The b component.
+	 * @param alpha The alpha, from 0 to 1.
+	 * @return The packed ARGB color.
+	 */
+	public static int labToArgb(double lightness, double a, double b, double alpha) {
+		double fy = (lightness + 16) / 116;
+		double fx = fy + a / 500;
+		double fz = fy - b / 200;
+		double x = labInverse(fx) * 0.3457 / 0.3585;
+		double y = lightness > LAB_KAPPA * LAB_EPSILON ? fy * fy * fy : lightness / LAB_KAPPA;
+		double z = labInverse(fz) * (1 - 0.3457 - 0.3585) / 0.3585;
+
+		// Bradford adaptation from D50 to D65, then XYZ to linear sRGB
+		double x65 = 0.955473421488075 * x - 0.02309845494876471 * y + 0.06325924320057072 * z;
+		double y65 = -0.0283697093338637 * x + 1.0099953980813041 * y + 0.021041441191917323 * z;
+		double z65 = 0.012314014864481998 * x - 0.020507649298898964 * y + 1.330365926242124 * z;
+
+		int red = linearToSrgb(3.2409699419045226 * x65 - 1.537383177570094 * y65 - 0.4986107602930034 * z65);
+		int green = linearToSrgb(-0.9692436362808796 * x65 + 1.8759675015077202 * y65 + 0.04155505740717559 * z65);
+		int blue = linearToSrgb(0.05563007969699366 * x65 - 0.20397695888897652 * y65 + 1.0569715142428786 * z65);
+		return (toByte(alpha) << 24) | (red << 16) | (green << 8) | blue;
+	}
+
+	private static double labInverse(double f) {
+		double cube = f * f * f;
+		return cube > LAB_EPSILON ? cube : (116 * f - 16) / LAB_KAPPA;
+	}
+
+	private static double srgbToLinear(int channel) {
+		double c = channel / 255.0;
+		return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+	}
+
+	private static int linearToSrgb(double c) {
+		double encoded = c <= 0.0031308 ? 12.92 * c : 1.055 * Math.pow(c, 1 / 2.4) - 0.055;
+		return toByte(encoded);
+	}
+
+	private static int toByte(double value) {
+		return (int) Math.round(Math.max(0, Math.min(1, value)) * 255);
+	}
+}
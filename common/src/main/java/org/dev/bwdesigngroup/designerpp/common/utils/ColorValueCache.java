@@ -0,0 +1,47 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ColorValueCache remembers what {@link ParseColor} made of each raw value. Themes repeat a small palette and the
+ * same non-color values ("16px", "none") throughout, so resolving a theme parses each distinct value once and every
+ * repeat is a single lookup that returns a shared result.
+ * <p>
+ * The cache is bounded: once it holds {@value #MAX_ENTRIES} values it is emptied and fills up again with the values
+ * still in use.
+ *
+ * @author Aaron Rai
+ */
+public class ColorValueCache {
+	private static final int MAX_ENTRIES = 8192;
+	private static final Long NOT_A_COLOR = ParseColor.NOT_A_COLOR;
+
+	private static final Map<String, Long> PARSED = new ConcurrentHashMap<>();
+
+	private ColorValueCache() {
+	}
+
+	/**
+	 * Same as {@link ParseColor#parseArgb(CharSequence)}, remembering the result.
+	 *
+	 * @param value The value to parse, may be null.
+	 * @return The packed ARGB color in the low 32 bits, to be cast to an int, or {@link ParseColor#NOT_A_COLOR}.
+	 */
+	public static long parseArgb(String value) {
+		if (value == null) {
+			return ParseColor.NOT_A_COLOR;
+		}
+		Long cached = PARSED.get(value);
+		if (cached != null) {
+			return cached;
+		}
+
+		long argb = ParseColor.parseArgb(value);
+		if (PARSED.size() >= MAX_ENTRIES) {
+			PARSED.clear();
+		}
+		PARSED.put(value, argb == ParseColor.NOT_A_COLOR ? NOT_A_COLOR : Long.valueOf(argb));
+		return argb;
+	}
+}
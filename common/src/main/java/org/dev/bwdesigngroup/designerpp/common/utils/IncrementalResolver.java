@@ -0,0 +1,186 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * IncrementalResolver keeps the resolved values of a theme up to date while its raw values are edited, for trying
+ * out a value before changing any CSS file.
+ * <p>
+ * Alongside the resolved values it keeps the reverse of the var() reference graph: for every variable, the
+ * variables whose raw values reference it. When a value is edited only the edited variable and its transitive
+ * dependents are resolved again, with everything else reused from the previous resolution, so an edit costs time in
+ * proportion to what it affects rather than to the size of the theme. The {@link VariableResolver} orders the
+ * affected variables itself, so they can be handed to it in any order. Not thread-safe.
+ *
+ * @author Aaron Rai
+ */
+public class IncrementalResolver {
+	private final Map<String, String> baseValues;
+	private final Map<String, String> rawValues;
+	private final Map<String, String> resolvedValues;
+	private final Map<String, Set<String>> references = new HashMap<>();
+	private final Map<String, Set<String>> dependents = new HashMap<>();
+	private final Set<String> cyclic = new HashSet<>();
+
+	/**
+	 * Constructor for the IncrementalResolver. Resolves every variable once.
+	 *
+	 * @param rawValues The raw variable values keyed by variable name, without the leading dashes.
+	 */
+	public IncrementalResolver(Map<String, String> rawValues) {
+		this.baseValues = new HashMap<>(rawValues);
+		this.rawValues = new HashMap<>(rawValues);
+		for (Map.Entry<String, String> variable : rawValues.entrySet()) {
+			addReferences(variable.getKey(), variable.getValue());
+		}
+
+		VariableResolver resolver = new VariableResolver(this.rawValues);
+		this.resolvedValues = new HashMap<>(rawValues.size() * 2);
+		for (String name : rawValues.keySet()) {
+			resolvedValues.put(name, resolver.resolve(name));
+			if (resolver.isCyclic(name)) {
+				cyclic.add(name);
+			}
+		}
+	}
+
+	/**
+	 * @param name The variable name, without the leading dashes.
+	 * @return The current raw value of the variable, edited or not, or null if it is undefined.
+	 */
+	public String getRawValue(String name) {
+		return rawValues.get(name);
+	}
+
+	/**
+	 * @param name The variable name, without the leading dashes.
+	 * @return The resolved value of the variable, or null if it cannot be resolved.
+	 */
+	public String getResolvedValue(String name) {
+		return resolvedValues.get(name);
+	}
+
+	/**
+	 * @param name The variable name, without the leading dashes.
+	 * @return True if the variable is part of a reference cycle.
+	 */
+	public boolean isCyclic(String name) {
+		return cyclic.contains(name);
+	}
+
+	/**
+	 * @param name The variable name, without the leading dashes.
+	 * @return True if the variable's raw value was edited away from the value it was created with.
+	 */
+	public boolean isOverridden(String name) {
+		return !Objects.equals(rawValues.get(name), baseValues.get(name));
+	}
+
+	/**
+	 * Replaces the raw value of a variable and resolves it and its transitive dependents again.
+	 *
+	 * @param name The variable name, without the leading dashes.
+	 * @param value The new raw value.
+	 * @return The edited variable followed by every dependent whose resolved value changed.
+	 */
+	public Set<String> setValue(String name, String value) {
+		rawValues.put(name, value);
+		removeReferences(name);
+		addReferences(name, value);
+		return reresolve(name);
+	}
+
+	/**
+	 * Restores the raw value a variable was created with and resolves it and its transitive dependents again.
+	 *
+	 * @param name The variable name, without the leading dashes.
+	 * @return The restored variable followed by every dependent whose resolved value changed.
+	 */
+	public Set<String> reset(String name) {
+		String base = baseValues.get(name);
+		if (base != null) {
+			return setValue(name, base);
+		}
+		if (rawValues.remove(name) == null) {
+			return Collections.singleton(name);
+		}
+		removeReferences(name);
+		return reresolve(name);
+	}
+
+	/**
+	 * Resolves a variable and everything that depends on it, directly or not, reusing every other resolved value.
+	 */
+	private Set<String> reresolve(String name) {
+		Set<String> affected = new LinkedHashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		affected.add(name);
+		pending.add(name);
+		while (!pending.isEmpty()) {
+			for (String dependent : dependents.getOrDefault(pending.poll(), Collections.emptySet())) {
+				if (affected.add(dependent)) {
+					pending.add(dependent);
+				}
+			}
+		}
+
+		// A variable in a cycle with an affected one depends on it, so every cycle that can change is re-checked
+		Map<String, String> previous = new HashMap<>(affected.size() * 2);
+		for (String variable : affected) {
+			previous.put(variable, resolvedValues.remove(variable));
+			cyclic.remove(variable);
+		}
+
+		VariableResolver resolver = new VariableResolver(rawValues, resolvedValues);
+		Set<String> changed = new LinkedHashSet<>();
+		changed.add(name);
+		for (String variable : affected) {
+			String value = resolver.resolve(variable);
+			if (resolver.isCyclic(variable)) {
+				cyclic.add(variable);
+			}
+			if (rawValues.containsKey(variable)) {
+				resolvedValues.put(variable, value);
+			}
+			if (!Objects.equals(value, previous.get(variable))) {
+				changed.add(variable);
+			}
+		}
+		return changed;
+	}
+
+	private void addReferences(String name, String value) {
+		Set<String> referenced = VariableResolver.references(value);
+		if (referenced.isEmpty()) {
+			return;
+		}
+		references.put(name, referenced);
+		for (String reference : referenced) {
+			dependents.computeIfAbsent(reference, key -> new HashSet<>()).add(name);
+		}
+	}
+
+	private void removeReferences(String name) {
+		Set<String> referenced = references.remove(name);
+		if (referenced == null) {
+			return;
+		}
+		for (String reference : referenced) {
+			Set<String> referencing = dependents.get(reference);
+			if (referencing != null) {
+				referencing.remove(name);
+				if (referencing.isEmpty()) {
+					dependents.remove(reference);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,484 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import java.awt.Color;
+
+/**
+ * ParseColor parses CSS color values into packed ARGB colors.
+ * <p>
+ * Values are read in a single pass over the characters, without regular expressions, case conversion, splitting or
+ * any other allocation, so parsing every variable of every theme costs next to nothing and produces no garbage.
+ * Supported are hex colors (#RGB, #RGBA, #RRGGBB, #RRGGBBAA), rgb()/rgba(), hsl()/hsla() and hwb() in both the
+ * comma-separated and the space-separated syntax with an optional "/ alpha", lab(), lch(), oklab(), oklch(), the
+ * named colors and "transparent". Components may be "none", percentages, or angles in deg, rad, grad or turn where
+ * a hue is expected.
+ *
+ * @author Aaron Rai
+ */
+public class ParseColor {
+
+	/**
+	 * Returned by {@link #parseArgb(CharSequence)} for values that are not colors. Every int is a valid ARGB color,
+	 * so parsed colors are returned in the low 32 bits of a long and this value lies outside that range.
+	 */
+	public static final long NOT_A_COLOR = -1L;
+
+	private static final int UNIT_NUMBER = 0;
+	private static final int UNIT_PERCENT = 1;
+	private static final int UNIT_ANGLE = 2;
+	private static final int UNIT_NONE = 3;
+
+	private static final int RGB = 0;
+	private static final int HSL = 1;
+	private static final int HWB = 2;
+	private static final int LAB = 3;
+	private static final int LCH = 4;
+	private static final int OKLAB = 5;
+	private static final int OKLCH = 6;
+
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+		1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+	private ParseColor() {
+	}
+
+	/**
+	 * Checks if a string is a valid CSS color value.
+	 *
+	 * @param value The string to check.
+	 * @return True if the string is a valid color, false otherwise.
+	 */
+	public static boolean isColor(String value) {
+		return parseArgb(value) != NOT_A_COLOR;
+	}
+
+	/**
+	 * Parses a CSS color string and returns a Java Color object. Prefer {@link #parseArgb(CharSequence)}, which does
+	 * not allocate.
+	 *
+	 * @param colorString The CSS color string to parse
+	 * @return A Color object, or null if parsing fails
+	 */
+	public static Color parseColor(String colorString) {
+		long argb = parseArgb(colorString);
+		return argb == NOT_A_COLOR ? null : new Color((int) argb, true);
+	}
+
+	/**
+	 * Parses a CSS color value. Surrounding whitespace is ignored and function and color names are matched ignoring
+	 * case.
+	 *
+	 * @param value The value to parse, may be null.
+	 * @return The packed ARGB color in the low 32 bits, to be cast to an int, or {@link #NOT_A_COLOR}.
+	 */
+	public static long parseArgb(CharSequence value) {
+		if (value == null) {
+			return NOT_A_COLOR;
+		}
+		int start = 0;
+		int end = value.length();
+		while (start < end && isWhitespace(value.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(value.charAt(end - 1))) {
+			end--;
+		}
+		if (start == end) {
+			return NOT_A_COLOR;
+		}
+
+		if (value.charAt(start) == '#') {
+			return parseHex(value, start + 1, end);
+		}
+		int open = start;
+		while (open < end && value.charAt(open) != '(') {
+			open++;
+		}
+		if (open == end) {
+			return NamedColors.lookup(value, start, end);
+		}
+		if (value.charAt(end - 1) != ')') {
+			return NOT_A_COLOR;
+		}
+
+		int function = functionOf(value, start, open);
+		if (function < 0) {
+			return NOT_A_COLOR;
+		}
+		return parseFunction(value, open + 1, end - 1, function);
+	}
+
+	private static long parseHex(CharSequence value, int start, int end) {
+		int length = end - start;
+		if (length != 3 && length != 4 && length != 6 && length != 8) {
+			return NOT_A_COLOR;
+		}
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(value.charAt(i), 16);
+			if (digit < 0) {
+				return NOT_A_COLOR;
+			}
+			digits = (digits << 4) | digit;
+		}
+
+		switch (length) {
+			case 3:
+				return argb(0xFF, ((digits >> 8) & 0xF) * 0x11, ((digits >> 4) & 0xF) * 0x11, (digits & 0xF) * 0x11);
+			case 4:
+				return argb((digits & 0xF) * 0x11, ((digits >> 12) & 0xF) * 0x11, ((digits >> 8) & 0xF) * 0x11,
+					((digits >> 4) & 0xF) * 0x11);
+			case 6:
+				return 0xFF000000L | digits;
+			default:
+				return ((digits & 0xFF) << 24 | digits >>> 8) & 0xFFFFFFFFL;
+		}
+	}
+
+	private static int functionOf(CharSequence value, int start, int end) {
+		switch (end - start) {
+			case 3:
+				if (regionMatches(value, start, "rgb")) {
+					return RGB;
+				}
+				if (regionMatches(value, start, "hsl")) {
+					return HSL;
+				}
+				if (regionMatches(value, start, "hwb")) {
+					return HWB;
+				}
+				if (regionMatches(value, start, "lab")) {
+					return LAB;
+				}
+				return regionMatches(value, start, "lch") ? LCH : -1;
+			case 4:
+				if (regionMatches(value, start, "rgba")) {
+					return RGB;
+				}
+				return regionMatches(value, start, "hsla") ? HSL : -1;
+			case 5:
+				if (regionMatches(value, start, "oklab")) {
+					return OKLAB;
+				}
+				return regionMatches(value, start, "oklch") ? OKLCH : -1;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Parses the arguments between the parentheses of a color function: three components separated by commas or
+	 * whitespace, then an optional alpha after a comma (comma syntax) or a slash (space syntax).
+	 */
+	private static long parseFunction(CharSequence value, int start, int end, int function) {
+		double c0 = 0;
+		double c1 = 0;
+		double c2 = 0;
+		double alpha = 1;
+		int units = 0;
+		int count = 0;
+		boolean commas = false;
+		boolean slash = false;
+
+		int i = start;
+		while (true) {
+			while (i < end && isWhitespace(value.charAt(i))) {
+				i++;
+			}
+			if (i == end) {
+				break;
+			}
+			if (count == 4) {
+				return NOT_A_COLOR;
+			}
+
+			char c = value.charAt(i);
+			if (count > 0) {
+				if (c == ',') {
+					if (count == 1) {
+						commas = true;
+					} else if (!commas) {
+						return NOT_A_COLOR;
+					}
+					i = skipWhitespace(value, i + 1, end);
+				} else if (c == '/') {
+					if (commas || count != 3) {
+						return NOT_A_COLOR;
+					}
+					slash = true;
+					i = skipWhitespace(value, i + 1, end);
+				} else if (commas || count == 3) {
+					return NOT_A_COLOR;
+				}
+			}
+			if (i == end) {
+				return NOT_A_COLOR;
+			}
+
+			// Read one component: "none" or a number with an optional unit
+			double component;
+			int unit;
+			if (end - i >= 4 && regionMatches(value, i, "none")) {
+				component = 0;
+				unit = UNIT_NONE;
+				i += 4;
+			} else {
+				boolean negative = false;
+				c = value.charAt(i);
+				if (c == '+' || c == '-') {
+					negative = c == '-';
+					i++;
+				}
+				long mantissa = 0;
+				int digits = 0;
+				int exponent = 0;
+				boolean fraction = false;
+				for (; i < end; i++) {
+					c = value.charAt(i);
+					if (c >= '0' && c <= '9') {
+						if (mantissa < 100_000_000_000_000_000L) {
+							mantissa = mantissa * 10 + (c - '0');
+							if (fraction) {
+								exponent--;
+							}
+						} else if (!fraction) {
+							exponent++;
+						}
+						digits++;
+					} else if (c == '.' && !fraction) {
+						fraction = true;
+					} else {
+						break;
+					}
+				}
+				if (digits == 0) {
+					return NOT_A_COLOR;
+				}
+				if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E') && i + 1 < end
+						&& (isDigit(value.charAt(i + 1)) || (i + 2 < end && (value.charAt(i + 1) == '-' || value.charAt(i + 1) == '+')
+						&& isDigit(value.charAt(i + 2))))) {
+					i++;
+					boolean negativeExponent = value.charAt(i) == '-';
+					if (value.charAt(i) == '-' || value.charAt(i) == '+') {
+						i++;
+					}
+					int power = 0;
+					for (; i < end && isDigit(value.charAt(i)); i++) {
+						power = Math.min(power * 10 + (value.charAt(i) - '0'), 400);
+					}
+					exponent += negativeExponent ? -power : power;
+				}
+				component = scale(mantissa, exponent);
+				if (negative) {
+					component = -component;
+				}
+
+				unit = UNIT_NUMBER;
+				if (i < end && value.charAt(i) == '%') {
+					unit = UNIT_PERCENT;
+					i++;
+				} else if (i < end && isLetter(value.charAt(i))) {
+					int unitStart = i;
+					while (i < end && isLetter(value.charAt(i))) {
+						i++;
+					}
+					double degrees = toDegrees(value, unitStart, i, component);
+					if (Double.isNaN(degrees)) {
+						return NOT_A_COLOR;
+					}
+					component = degrees;
+					unit = UNIT_ANGLE;
+				}
+			}
+			if (i < end && !isWhitespace(value.charAt(i)) && value.charAt(i) != ',' && value.charAt(i) != '/') {
+				return NOT_A_COLOR;
+			}
+
+			switch (count) {
+				case 0:
+					c0 = component;
+					break;
+				case 1:
+					c1 = component;
+					break;
+				case 2:
+					c2 = component;
+					break;
+				default:
+					if (unit == UNIT_ANGLE) {
+						return NOT_A_COLOR;
+					}
+					alpha = unit == UNIT_PERCENT ? component / 100 : component;
+					break;
+			}
+			units |= unit << (count * 2);
+			count++;
+		}
+		if (count < 3 || (count == 4 && !commas && !slash)) {
+			return NOT_A_COLOR;
+		}
+
+		int unit0 = units & 3;
+		int unit1 = (units >> 2) & 3;
+		int unit2 = (units >> 4) & 3;
+		boolean hue0 = function == HSL || function == HWB;
+		boolean hue2 = function == LCH || function == OKLCH;
+		if ((unit0 == UNIT_ANGLE && !hue0) || unit1 == UNIT_ANGLE || (unit2 == UNIT_ANGLE && !hue2)
+				|| (hue0 && unit0 == UNIT_PERCENT) || (hue2 && unit2 == UNIT_PERCENT)) {
+			return NOT_A_COLOR;
+		}
+		int a = toByte(alpha);
+
+		switch (function) {
+			case RGB:
+				return argb(a, rgbChannel(c0, unit0), rgbChannel(c1, unit1), rgbChannel(c2, unit2));
+			case HSL:
+				return hslToArgb(a, c0, c1 / 100, c2 / 100);
+			case HWB:
+				return hwbToArgb(a, c0, c1 / 100, c2 / 100);
+			case LAB:
+				return ColorSpaces.labToArgb(c0, percent(c1, unit1, 125), percent(c2, unit2, 125), alpha) & 0xFFFFFFFFL;
+			case LCH: {
+				double chroma = percent(c1, unit1, 150);
+				double radians = Math.toRadians(c2);
+				return ColorSpaces.labToArgb(c0, chroma * Math.cos(radians), chroma * Math.sin(radians), alpha) & 0xFFFFFFFFL;
+			}
+			case OKLAB:
+				return ColorSpaces.oklabToArgb(percent(c0, unit0, 1), percent(c1, unit1, 0.4), percent(c2, unit2, 0.4), alpha)
+					& 0xFFFFFFFFL;
+			default: {
+				double chroma = percent(c1, unit1, 0.4);
+				double radians = Math.toRadians(c2);
+				return ColorSpaces.oklabToArgb(percent(c0, unit0, 1), chroma * Math.cos(radians), chroma * Math.sin(radians),
+					alpha) & 0xFFFFFFFFL;
+			}
+		}
+	}
+
+	private static int rgbChannel(double component, int unit) {
+		return toByte(unit == UNIT_PERCENT ? component / 100 : component / 255);
+	}
+
+	/**
+	 * Maps a component to its reference range: a percentage is a fraction of the value 100% stands for, a plain
+	 * number is taken as is.
+	 */
+	private static double percent(double component, int unit, double hundredPercent) {
+		return unit == UNIT_PERCENT ? component / 100 * hundredPercent : component;
+	}
+
+	private static long hslToArgb(int alpha, double hue, double saturation, double lightness) {
+		saturation = clamp(saturation);
+		lightness = clamp(lightness);
+		return argb(alpha, hslChannel(0, hue, saturation, lightness), hslChannel(8, hue, saturation, lightness),
+			hslChannel(4, hue, saturation, lightness));
+	}
+
+	private static int hslChannel(int n, double hue, double saturation, double lightness) {
+		double k = (n + normalizeHue(hue) / 30) % 12;
+		double amount = saturation * Math.min(lightness, 1 - lightness);
+		return toByte(lightness - amount * Math.max(-1, Math.min(Math.min(k - 3, 9 - k), 1)));
+	}
+
+	private static long hwbToArgb(int alpha, double hue, double whiteness, double blackness) {
+		whiteness = clamp(whiteness);
+		blackness = clamp(blackness);
+		if (whiteness + blackness >= 1) {
+			int gray = toByte(whiteness / (whiteness + blackness));
+			return argb(alpha, gray, gray, gray);
+		}
+		double scale = 1 - whiteness - blackness;
+		return argb(alpha,
+			toByte(hslChannelValue(0, hue) * scale + whiteness),
+			toByte(hslChannelValue(8, hue) * scale + whiteness),
+			toByte(hslChannelValue(4, hue) * scale + whiteness));
+	}
+
+	/**
+	 * One channel of the fully saturated, half light color of a hue, from 0 to 1.
+	 */
+	private static double hslChannelValue(int n, double hue) {
+		double k = (n + normalizeHue(hue) / 30) % 12;
+		return 0.5 - 0.5 * Math.max(-1, Math.min(Math.min(k - 3, 9 - k), 1));
+	}
+
+	private static double normalizeHue(double hue) {
+		double normalized = hue % 360;
+		return normalized < 0 ? normalized + 360 : normalized;
+	}
+
+	/**
+	 * Converts an angle to degrees.
+	 *
+	 * @return The angle in degrees, or NaN if the unit is not an angle unit.
+	 */
+	private static double toDegrees(CharSequence value, int start, int end, double angle) {
+		switch (end - start) {
+			case 3:
+				if (regionMatches(value, start, "deg")) {
+					return angle;
+				}
+				return regionMatches(value, start, "rad") ? Math.toDegrees(angle) : Double.NaN;
+			case 4:
+				if (regionMatches(value, start, "grad")) {
+					return angle * 0.9;
+				}
+				return regionMatches(value, start, "turn") ? angle * 360 : Double.NaN;
+			default:
+				return Double.NaN;
+		}
+	}
+
+	private static double scale(long mantissa, int exponent) {
+		if (mantissa == 0) {
+			return 0;
+		}
+		if (exponent >= 0) {
+			return exponent < POWERS_OF_TEN.length ? mantissa * POWERS_OF_TEN[exponent] : mantissa * Math.pow(10, exponent);
+		}
+		return -exponent < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[-exponent] : mantissa / Math.pow(10, -exponent);
+	}
+
+	private static int skipWhitespace(CharSequence value, int i, int end) {
+		while (i < end && isWhitespace(value.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Checks whether the given lowercase ASCII text appears at an index, ignoring case. The caller makes sure the
+	 * value is long enough.
+	 */
+	static boolean regionMatches(CharSequence value, int start, String lowercase) {
+		for (int i = 0; i < lowercase.length(); i++) {
+			if ((value.charAt(start + i) | 0x20) != lowercase.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLetter(char c) {
+		return (c | 0x20) >= 'a' && (c | 0x20) <= 'z';
+	}
+
+	private static double clamp(double value) {
+		return Math.max(0, Math.min(1, value));
+	}
+
+	private static int toByte(double value) {
+		return (int) Math.round(clamp(value) * 255);
+	}
+
+	private static long argb(int alpha, int red, int green, int blue) {
+		return ((long) alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+}
@@ -0,0 +1,271 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * VariableResolver computes the final value of every CSS custom property in a theme by substituting var()
+ * references, the way a browser computes them on :root.
+ * <p>
+ * Variables are resolved in dependency order: an iterative walk of the reference graph (Tarjan's strongly connected
+ * components) hands out each variable after everything it references, so each variable is resolved exactly once and
+ * resolving one never recurses into another, however long a chain of references is. A reference to an undefined
+ * variable uses the var() fallback if one is given, otherwise the referencing variable is invalid. Variables that
+ * take part in a reference cycle, including one that runs through a fallback, are invalid as the CSS specification
+ * requires, and references to them fall back the same way.
+ *
+ * @author Aaron Rai
+ */
+public class VariableResolver {
+	private static final String VAR_FUNCTION = "var(";
+
+	private final Map<String, String> rawValues;
+	private final Map<String, String> knownValues;
+	private final Map<String, String> resolvedValues = new HashMap<>();
+	private final Set<String> cyclic = new HashSet<>();
+
+	/**
+	 * Constructor for the VariableResolver.
+	 *
+	 * @param rawValues The raw variable values keyed by variable name, without the leading dashes.
+	 */
+	public VariableResolver(Map<String, String> rawValues) {
+		this(rawValues, Collections.emptyMap());
+	}
+
+	/**
+	 * Constructor for a VariableResolver that reuses values resolved earlier, so that only the variables missing from
+	 * them are resolved again.
+	 *
+	 * @param rawValues The raw variable values keyed by variable name, without the leading dashes.
+	 * @param knownValues Resolved values, keyed by variable name, that are still valid for the raw values. A variable
+	 * mapped to null is known to be invalid.
+	 */
+	public VariableResolver(Map<String, String> rawValues, Map<String, String> knownValues) {
+		this.rawValues = rawValues;
+		this.knownValues = knownValues;
+	}
+
+	/**
+	 * Lists the variables a value references, including those only referenced in var() fallbacks, since a change to
+	 * any of them can change the value.
+	 *
+	 * @param value A raw variable value.
+	 * @return The referenced variable names, without the leading dashes, in the order they appear.
+	 */
+	public static Set<String> references(String value) {
+		Set<String> names = new LinkedHashSet<>();
+		int start = value.indexOf(VAR_FUNCTION);
+		while (start >= 0) {
+			int nameStart = start + VAR_FUNCTION.length();
+			int nameEnd = nameStart;
+			while (nameEnd < value.length() && value.charAt(nameEnd) != ',' && value.charAt(nameEnd) != ')') {
+				nameEnd++;
+			}
+			String name = stripDashes(value.substring(nameStart, nameEnd).trim());
+			if (!name.isEmpty()) {
+				names.add(name);
+			}
+			start = value.indexOf(VAR_FUNCTION, nameStart);
+		}
+		return names;
+	}
+
+	/**
+	 * Resolves every variable.
+	 *
+	 * @return The resolved values in the order of the raw values. A variable that could not be resolved maps to null.
+	 */
+	public Map<String, String> resolveAll() {
+		Map<String, String> result = new LinkedHashMap<>();
+		for (String name : rawValues.keySet()) {
+			result.put(name, resolve(name));
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves a single variable, along with everything it references.
+	 *
+	 * @param name The variable name, without the leading dashes.
+	 * @return The resolved value, or null if the variable is undefined, part of a cycle or references an undefined
+	 * variable without a fallback.
+	 */
+	public String resolve(String name) {
+		if (resolvedValues.containsKey(name)) {
+			return resolvedValues.get(name);
+		}
+		if (knownValues.containsKey(name)) {
+			return knownValues.get(name);
+		}
+		if (!rawValues.containsKey(name)) {
+			return null;
+		}
+		resolveFrom(name);
+		return resolvedValues.get(name);
+	}
+
+	/**
+	 * @param name The variable name, without the leading dashes.
+	 * @return True if the variable is part of a reference cycle. Only meaningful after it has been resolved.
+	 */
+	public boolean isCyclic(String name) {
+		return cyclic.contains(name);
+	}
+
+	/**
+	 * Replaces every var() function in a value with the resolved value of the variable it references.
+	 *
+	 * @param value The value to substitute.
+	 * @return The substituted value, or null if a reference could not be resolved and had no fallback.
+	 */
+	private String substitute(String value) {
+		int start = value.indexOf(VAR_FUNCTION);
+		if (start < 0) {
+			return value.trim();
+		}
+
+		StringBuilder result = new StringBuilder(value.length());
+		int copied = 0;
+		while (start >= 0) {
+			int end = findClosingParenthesis(value, start + VAR_FUNCTION.length());
+			if (end < 0) {
+				return null;
+			}
+
+			String arguments = value.substring(start + VAR_FUNCTION.length(), end);
+			int comma = arguments.indexOf(',');
+			String name = stripDashes((comma < 0 ? arguments : arguments.substring(0, comma)).trim());
+			String replacement = resolve(name);
+			if (replacement == null && comma >= 0) {
+				replacement = substitute(arguments.substring(comma + 1));
+			}
+			if (replacement == null) {
+				return null;
+			}
+
+			result.append(value, copied, start).append(replacement);
+			copied = end + 1;
+			start = value.indexOf(VAR_FUNCTION, copied);
+		}
+		result.append(value, copied, value.length());
+		return result.toString().trim();
+	}
+
+	/**
+	 * Resolves a variable and every unresolved variable it reaches, one strongly connected component at a time. A
+	 * component is only completed once every component it references has been, so by the time a variable's value is
+	 * substituted, every variable it references is already resolved and the substitution does not recurse.
+	 *
+	 * @param root The variable to start from, which must have a raw value and not be resolved yet.
+	 */
+	private void resolveFrom(String root) {
+		Map<String, int[]> visited = new HashMap<>();
+		Deque<String> component = new ArrayDeque<>();
+		Set<String> onComponent = new HashSet<>();
+		Deque<Visit> visits = new ArrayDeque<>();
+		visits.push(new Visit(root, visited, component, onComponent));
+
+		while (!visits.isEmpty()) {
+			Visit visit = visits.peek();
+			if (visit.references.hasNext()) {
+				String reference = visit.references.next();
+				if (!needsResolving(reference)) {
+					continue;
+				}
+				int[] state = visited.get(reference);
+				if (state == null) {
+					visits.push(new Visit(reference, visited, component, onComponent));
+				} else if (onComponent.contains(reference)) {
+					visit.state[1] = Math.min(visit.state[1], state[0]);
+				}
+				continue;
+			}
+
+			visits.pop();
+			if (!visits.isEmpty()) {
+				int[] parent = visits.peek().state;
+				parent[1] = Math.min(parent[1], visit.state[1]);
+			}
+			if (visit.state[1] == visit.state[0]) {
+				List<String> members = new ArrayList<>();
+				String member;
+				do {
+					member = component.pop();
+					onComponent.remove(member);
+					members.add(member);
+				} while (!member.equals(visit.name));
+				resolveComponent(members, visit);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the members of one strongly connected component, whose references outside the component are all
+	 * resolved already. A component of more than one variable, or a variable that references itself, is a cycle.
+	 */
+	private void resolveComponent(List<String> members, Visit last) {
+		if (members.size() > 1 || last.referencesItself) {
+			for (String member : members) {
+				cyclic.add(member);
+				resolvedValues.put(member, null);
+			}
+			return;
+		}
+		String name = members.get(0);
+		resolvedValues.put(name, substitute(rawValues.get(name)));
+	}
+
+	private boolean needsResolving(String name) {
+		return rawValues.containsKey(name) && !resolvedValues.containsKey(name) && !knownValues.containsKey(name);
+	}
+
+	/**
+	 * A variable being walked by {@link #resolveFrom(String)}: its discovery index and lowest reachable index, and
+	 * the references still to follow.
+	 */
+	private class Visit {
+		final String name;
+		final int[] state;
+		final Iterator<String> references;
+		final boolean referencesItself;
+
+		Visit(String name, Map<String, int[]> visited, Deque<String> component, Set<String> onComponent) {
+			this.name = name;
+			this.state = new int[] {visited.size(), visited.size()};
+			visited.put(name, state);
+			component.push(name);
+			onComponent.add(name);
+			Set<String> referenced = references(rawValues.get(name));
+			this.referencesItself = referenced.contains(name);
+			this.references = referenced.iterator();
+		}
+	}
+
+	private static int findClosingParenthesis(String value, int from) {
+		int depth = 1;
+		for (int i = from; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String stripDashes(String name) {
+		return name.startsWith("--") ? name.substring(2) : name;
+	}
+}
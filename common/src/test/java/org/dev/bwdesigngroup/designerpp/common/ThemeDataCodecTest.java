@@ -0,0 +1,134 @@
+package org.dev.bwdesigngroup.designerpp.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonNull;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParser;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+
+/**
+ * Tests for {@link ThemeDataCodec}.
+ *
+ * @author Aaron Rai
+ */
+class ThemeDataCodecTest {
+
+	private static JsonElement roundTrip(JsonElement element) {
+		return ThemeDataCodec.decode(ThemeDataCodec.encode(element));
+	}
+
+	@Test
+	void roundTripsPrimitives() {
+		JsonArray values = new JsonArray();
+		values.add(JsonNull.INSTANCE);
+		values.add(true);
+		values.add(false);
+		values.add(0);
+		values.add(-1);
+		values.add(Long.MAX_VALUE);
+		values.add(Long.MIN_VALUE);
+		values.add(0.5);
+		values.add(-1e300);
+		values.add("");
+		values.add("Grüße ✓ 🎨");
+
+		assertEquals(values, roundTrip(values));
+	}
+
+	@Test
+	void roundTripsNestedTree() {
+		JsonObject tree = JsonParser.parseString("{\"success\":true,\"version\":1792207411808,"
+			+ "\"themes\":{\"light\":{\"variables.css\":{\"a\":\"#fff\",\"b\":\"var(--a)\"},\"empty.css\":{}},"
+			+ "\"root\":{\"x\":\"1px\"}},"
+			+ "\"resolved\":{\"light\":{\"a\":{\"value\":\"#fff\",\"argb\":-1},\"b\":{\"value\":\"#fff\",\"argb\":-1},"
+			+ "\"c\":{\"error\":\"cycle\"}}},"
+			+ "\"removedThemes\":[\"dark\",\"other\"],\"nothing\":null}").getAsJsonObject();
+
+		assertEquals(tree, roundTrip(tree));
+	}
+
+	@Test
+	void sharesEqualFlatObjectsByReference() {
+		JsonObject file = new JsonObject();
+		file.addProperty("primary", "#1e88e5");
+		file.addProperty("spacing", "4px");
+		JsonObject themes = new JsonObject();
+		for (int i = 0; i < 20; i++) {
+			JsonObject theme = new JsonObject();
+			theme.add("variables.css", file.deepCopy());
+			themes.add("theme-" + i, theme);
+		}
+
+		JsonObject decoded = roundTrip(themes).getAsJsonObject();
+
+		assertEquals(themes, decoded);
+		JsonObject first = decoded.getAsJsonObject("theme-0").getAsJsonObject("variables.css");
+		for (int i = 1; i < 20; i++) {
+			assertSame(first, decoded.getAsJsonObject("theme-" + i).getAsJsonObject("variables.css"));
+		}
+		// Twenty copies of the file cost little more than one
+		JsonObject single = new JsonObject();
+		JsonObject theme = new JsonObject();
+		theme.add("variables.css", file);
+		single.add("theme-0", theme);
+		assertTrue(ThemeDataCodec.encode(themes).length < ThemeDataCodec.encode(single).length + 20 * 16);
+	}
+
+	@Test
+	void doesNotShareObjectsThatOnlyLookAlike() {
+		JsonObject tree = JsonParser.parseString("{\"a\":{\"x\":\"1\"},\"b\":{\"x\":1},\"c\":{\"x\":\"1\",\"y\":\"2\"},"
+			+ "\"d\":{\"nested\":{\"x\":\"1\"}},\"e\":{\"nested\":{\"x\":\"1\"}}}").getAsJsonObject();
+
+		JsonObject decoded = roundTrip(tree).getAsJsonObject();
+
+		assertEquals(tree, decoded);
+		assertNotSame(decoded.get("a"), decoded.get("b"));
+		assertNotSame(decoded.get("a"), decoded.get("c"));
+		// Objects holding objects are written in full, only their flat members are shared
+		assertNotSame(decoded.get("d"), decoded.get("e"));
+		assertSame(decoded.get("a"), decoded.getAsJsonObject("d").get("nested"));
+		assertSame(decoded.get("a"), decoded.getAsJsonObject("e").get("nested"));
+	}
+
+	@Test
+	void encodingIsDeterministic() {
+		JsonObject tree = JsonParser.parseString("{\"b\":{\"x\":\"1\",\"y\":\"1\"},\"a\":[\"y\",\"x\",\"z\"]}").getAsJsonObject();
+
+		assertArrayEquals(ThemeDataCodec.encode(tree), ThemeDataCodec.encode(tree.deepCopy()));
+	}
+
+	@Test
+	void rejectsForeignAndTruncatedPayloads() {
+		byte[] encoded = ThemeDataCodec.encode(JsonParser.parseString("{\"a\":{\"x\":\"1\"},\"b\":{\"x\":\"1\"}}"));
+
+		assertThrows(IllegalArgumentException.class, () -> ThemeDataCodec.decode("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(IllegalArgumentException.class, () -> ThemeDataCodec.decode(new byte[0]));
+		for (int length = 4; length < encoded.length; length++) {
+			byte[] truncated = Arrays.copyOf(encoded, length);
+			assertThrows(IllegalArgumentException.class, () -> ThemeDataCodec.decode(truncated), "length " + length);
+		}
+	}
+
+	@Test
+	void rejectsReferenceToUnknownObject() {
+		byte[] encoded = ThemeDataCodec.encode(new JsonPrimitive("x"));
+		// Replace the string node (tag, index) with a reference to an object that was never written
+		encoded[encoded.length - 2] = 9;
+		encoded[encoded.length - 1] = 3;
+
+		assertThrows(IllegalArgumentException.class, () -> ThemeDataCodec.decode(encoded));
+	}
+}
@@ -0,0 +1,148 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IncrementalResolver}. After every edit its values must equal a full resolution of the edited raw
+ * values.
+ *
+ * @author Aaron Rai
+ */
+class IncrementalResolverTest {
+
+	private static Map<String, String> values(String... pairs) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			values.put(pairs[i], pairs[i + 1]);
+		}
+		return values;
+	}
+
+	private static void assertMatchesFullResolution(Map<String, String> rawValues, IncrementalResolver incremental) {
+		VariableResolver full = new VariableResolver(rawValues);
+		for (Map.Entry<String, String> resolved : full.resolveAll().entrySet()) {
+			assertEquals(resolved.getValue(), incremental.getResolvedValue(resolved.getKey()), resolved.getKey());
+			assertEquals(full.isCyclic(resolved.getKey()), incremental.isCyclic(resolved.getKey()), resolved.getKey());
+		}
+	}
+
+	@Test
+	void reportsEditedVariableAndChangedDependents() {
+		IncrementalResolver resolver = new IncrementalResolver(values(
+			"primary", "#1e88e5",
+			"button", "var(--primary)",
+			"border", "1px solid var(--button)",
+			"fallback", "var(--missing, var(--primary))",
+			"unrelated", "4px"));
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("primary", "button", "fallback", "border")),
+			resolver.setValue("primary", "red"));
+		assertEquals("1px solid red", resolver.getResolvedValue("border"));
+		assertEquals("red", resolver.getResolvedValue("fallback"));
+		assertTrue(resolver.isOverridden("primary"));
+		assertFalse(resolver.isOverridden("button"));
+	}
+
+	@Test
+	void leavesDependentsWhoseValueDidNotChangeOut() {
+		IncrementalResolver resolver = new IncrementalResolver(values(
+			"a", "red",
+			"b", "var(--a, blue)"));
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("a")), resolver.setValue("a", " red "));
+	}
+
+	@Test
+	void resetRestoresTheOriginalValue() {
+		Map<String, String> original = values("a", "red", "b", "var(--a)");
+		IncrementalResolver resolver = new IncrementalResolver(original);
+
+		resolver.setValue("a", "blue");
+		resolver.setValue("c", "var(--b)");
+		assertEquals("blue", resolver.getResolvedValue("c"));
+
+		resolver.reset("a");
+		resolver.reset("c");
+		assertFalse(resolver.isOverridden("a"));
+		assertNull(resolver.getRawValue("c"));
+		assertNull(resolver.getResolvedValue("c"));
+		assertMatchesFullResolution(original, resolver);
+	}
+
+	@Test
+	void editsCreateAndBreakCycles() {
+		Map<String, String> rawValues = values("a", "var(--b)", "b", "var(--c, green)", "d", "var(--a, orange)");
+		IncrementalResolver resolver = new IncrementalResolver(rawValues);
+		assertEquals("green", resolver.getResolvedValue("d"));
+
+		rawValues.put("c", "var(--a)");
+		resolver.setValue("c", "var(--a)");
+		assertTrue(resolver.isCyclic("a"));
+		assertTrue(resolver.isCyclic("c"));
+		assertEquals("orange", resolver.getResolvedValue("d"));
+		assertMatchesFullResolution(rawValues, resolver);
+
+		rawValues.put("c", "teal");
+		resolver.setValue("c", "teal");
+		assertFalse(resolver.isCyclic("a"));
+		assertEquals("teal", resolver.getResolvedValue("d"));
+		assertMatchesFullResolution(rawValues, resolver);
+	}
+
+	@Test
+	void editsTheEndOfALongChain() {
+		Map<String, String> rawValues = new HashMap<>();
+		int length = 20_000;
+		for (int i = 0; i < length - 1; i++) {
+			rawValues.put("link" + i, "var(--link" + (i + 1) + ")");
+		}
+		rawValues.put("link" + (length - 1), "red");
+		IncrementalResolver resolver = new IncrementalResolver(rawValues);
+
+		assertEquals(length, resolver.setValue("link" + (length - 1), "blue").size());
+		assertEquals("blue", resolver.getResolvedValue("link0"));
+	}
+
+	@Test
+	void randomEditsMatchFullResolution() {
+		Random random = new Random(7);
+		Map<String, String> rawValues = new HashMap<>();
+		for (int i = 0; i < 30; i++) {
+			rawValues.put("v" + i, randomValue(random));
+		}
+		IncrementalResolver resolver = new IncrementalResolver(rawValues);
+
+		for (int edit = 0; edit < 500; edit++) {
+			String name = "v" + random.nextInt(32);
+			String value = randomValue(random);
+			rawValues.put(name, value);
+			resolver.setValue(name, value);
+			assertMatchesFullResolution(rawValues, resolver);
+		}
+	}
+
+	private static String randomValue(Random random) {
+		switch (random.nextInt(4)) {
+			case 0:
+				return "#" + Integer.toHexString(0x100000 + random.nextInt(0xEFFFFF));
+			case 1:
+				return "var(--v" + random.nextInt(32) + ")";
+			case 2:
+				return "var(--v" + random.nextInt(32) + ", var(--v" + random.nextInt(32) + ", gray))";
+			default:
+				return "1px solid var(--v" + random.nextInt(32) + ", black)";
+		}
+	}
+}
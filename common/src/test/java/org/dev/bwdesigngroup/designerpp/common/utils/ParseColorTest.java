@@ -0,0 +1,127 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ParseColor}.
+ *
+ * @author Aaron Rai
+ */
+class ParseColorTest {
+
+	private static void assertArgb(long expected, String value) {
+		assertEquals(expected, ParseColor.parseArgb(value), value);
+		assertTrue(ParseColor.isColor(value), value);
+	}
+
+	private static void assertRejected(String value) {
+		assertEquals(ParseColor.NOT_A_COLOR, ParseColor.parseArgb(value), value);
+		assertFalse(ParseColor.isColor(value), value);
+		assertNull(ParseColor.parseColor(value), value);
+	}
+
+	@Test
+	void parsesHexColors() {
+		assertArgb(0xFFAABBCCL, "#abc");
+		assertArgb(0xDDAABBCCL, "#ABCD");
+		assertArgb(0xFF1E88E5L, "#1e88e5");
+		assertArgb(0x801E88E5L, "#1e88e580");
+		assertArgb(0x00000000L, "#00000000");
+	}
+
+	@Test
+	void parsesRgbInBothSyntaxes() {
+		assertArgb(0xFFFF0000L, "rgb(255, 0, 0)");
+		assertArgb(0xFFFF0000L, "RGB(255 0 0)");
+		assertArgb(0xFF00FF00L, "rgb(0% 100% 0%)");
+		assertArgb(0x800000FFL, "rgba(0, 0, 255, 0.5)");
+		assertArgb(0x800000FFL, "rgb(0 0 255 / 50%)");
+		assertArgb(0xFF00FF00L, "rgb(none 255 none)");
+		assertArgb(0xFFFF0000L, "rgb(2.55e2 -10 0)");
+		assertArgb(0xFFFFFFFFL, "rgb(300 +255 255 / 2)");
+	}
+
+	@Test
+	void parsesHueBasedFunctions() {
+		assertArgb(0xFF00FF00L, "hsl(120, 100%, 50%)");
+		assertArgb(0xFF00FFFFL, "hsl(0.5turn 100% 50%)");
+		assertArgb(0xFF00FFFFL, "hsla(200grad, 100%, 50%, 1)");
+		assertArgb(0xFFFF0000L, "hsl(-360deg 100% 50%)");
+		assertArgb(0xFFFF0000L, "hwb(0 0% 0%)");
+		assertArgb(0xFF808080L, "hwb(90 50% 50%)");
+	}
+
+	@Test
+	void parsesLabFamilies() {
+		assertArgb(0xFF000000L, "lab(0 0 0)");
+		assertArgb(0xFFFFFFFFL, "oklab(1 0 0)");
+		assertArgb(0xFFFFFFFFL, "oklab(100% 0 0)");
+		assertArgb(0xFF000000L, "oklch(0 0 0)");
+		assertArgb(0x80000000L, "lch(0% 0 0deg / 0.5)");
+	}
+
+	@Test
+	void parsesNamedColors() {
+		assertArgb(0xFFFF0000L, "red");
+		assertArgb(0xFF663399L, "RebeccaPurple");
+		assertArgb(0x00000000L, "transparent");
+		assertArgb(0xFFFF0000L, "  red\n");
+	}
+
+	@Test
+	void parseColorMatchesParseArgb() {
+		Color color = ParseColor.parseColor("rgba(10, 20, 30, 0.5)");
+
+		assertEquals((int) ParseColor.parseArgb("rgba(10, 20, 30, 0.5)"), color.getRGB());
+		assertEquals(10, color.getRed());
+		assertEquals(128, color.getAlpha());
+	}
+
+	@Test
+	void rejectsMalformedHex() {
+		assertRejected(null);
+		assertRejected("");
+		assertRejected("   ");
+		assertRejected("#");
+		assertRejected("#12");
+		assertRejected("#12345");
+		assertRejected("#1234567");
+		assertRejected("#ggg");
+	}
+
+	@Test
+	void rejectsMalformedFunctions() {
+		assertRejected("rgb(1, 2)");
+		assertRejected("rgb(1 2 3 4)");
+		assertRejected("rgb(1, 2 3)");
+		assertRejected("rgb(1, 2, 3 / 0.5)");
+		assertRejected("rgb(1 2 3 / 0.5deg)");
+		assertRejected("rgb(1 2 3 /)");
+		assertRejected("rgb(1 2 3");
+		assertRejected("rgb(1 2 3))");
+		assertRejected("rgb(1px 2 3)");
+		assertRejected("rgb(10deg 0 0)");
+		assertRejected("hsl(10% 50% 50%)");
+		assertRejected("hsl(10q 50% 50%)");
+		assertRejected("lch(50 20 30%)");
+		assertRejected("color(srgb 1 0 0)");
+		assertRejected("rgb()");
+		assertRejected("rgb(. 0 0)");
+	}
+
+	@Test
+	void rejectsValuesThatAreNotColors() {
+		assertRejected("notacolor");
+		assertRejected("var(--primary)");
+		assertRejected("4px");
+		assertRejected("1px solid red");
+		assertRejected("redd");
+	}
+}
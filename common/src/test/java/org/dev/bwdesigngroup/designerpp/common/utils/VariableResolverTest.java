@@ -0,0 +1,174 @@
+package org.dev.bwdesigngroup.designerpp.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link VariableResolver}.
+ *
+ * @author Aaron Rai
+ */
+class VariableResolverTest {
+	private static final int CHAIN_LENGTH = 50_000;
+
+	private static Map<String, String> values(String... pairs) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			values.put(pairs[i], pairs[i + 1]);
+		}
+		return values;
+	}
+
+	/**
+	 * Builds a chain in which every variable references the next one and the last one holds a color, listed from the
+	 * head of the chain so that resolving in the given order would walk the whole chain at once.
+	 */
+	private static Map<String, String> chain(String prefix, String tail) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < CHAIN_LENGTH - 1; i++) {
+			values.put(prefix + i, "var(--" + prefix + (i + 1) + ")");
+		}
+		values.put(prefix + (CHAIN_LENGTH - 1), tail);
+		return values;
+	}
+
+	@Test
+	void substitutesReferences() {
+		Map<String, String> resolved = new VariableResolver(values(
+			"border", "1px solid var(--primary)",
+			"primary", "var(--blue)",
+			"blue", " #1e88e5 ",
+			"plain", "4px")).resolveAll();
+
+		assertEquals("1px solid #1e88e5", resolved.get("border"));
+		assertEquals("#1e88e5", resolved.get("primary"));
+		assertEquals("4px", resolved.get("plain"));
+		assertEquals(Arrays.asList("border", "primary", "blue", "plain"), Arrays.asList(resolved.keySet().toArray()));
+	}
+
+	@Test
+	void usesFallbacksForUndefinedReferences() {
+		VariableResolver resolver = new VariableResolver(values(
+			"a", "var(--missing, red)",
+			"b", "var(--missing, var(--also-missing, var(--c)))",
+			"c", "blue",
+			"d", "var(--missing)",
+			"e", "var(--d, green)",
+			"f", "var(--missing,)",
+			"g", "rgba(var(--missing, 0, 0, 0), 0.5)"));
+
+		assertEquals("red", resolver.resolve("a"));
+		assertEquals("blue", resolver.resolve("b"));
+		assertNull(resolver.resolve("d"));
+		assertEquals("green", resolver.resolve("e"));
+		assertEquals("", resolver.resolve("f"));
+		assertEquals("rgba(0, 0, 0, 0.5)", resolver.resolve("g"));
+		assertNull(resolver.resolve("undefined"));
+	}
+
+	@Test
+	void rejectsUnterminatedReferences() {
+		assertNull(new VariableResolver(values("a", "var(--b", "b", "red")).resolve("a"));
+	}
+
+	@Test
+	void marksCyclesInvalid() {
+		VariableResolver resolver = new VariableResolver(values(
+			"self", "var(--self)",
+			"a", "var(--b)",
+			"b", "var(--c)",
+			"c", "var(--a)",
+			"behind", "var(--a)",
+			"rescued", "var(--a, orange)",
+			"through-fallback", "var(--missing, var(--through-fallback))"));
+		Map<String, String> resolved = resolver.resolveAll();
+
+		for (String name : Arrays.asList("self", "a", "b", "c", "through-fallback")) {
+			assertNull(resolved.get(name), name);
+			assertTrue(resolver.isCyclic(name), name);
+		}
+		assertNull(resolved.get("behind"));
+		assertFalse(resolver.isCyclic("behind"));
+		assertEquals("orange", resolved.get("rescued"));
+		assertFalse(resolver.isCyclic("rescued"));
+	}
+
+	@Test
+	void resolvesSameResultInAnyOrder() {
+		Map<String, String> values = values(
+			"a", "var(--b, var(--c))",
+			"b", "var(--missing)",
+			"c", "var(--d) var(--e)",
+			"d", "1px",
+			"e", "var(--f, var(--a))",
+			"f", "solid");
+		Map<String, String> expected = new VariableResolver(values).resolveAll();
+
+		for (String first : values.keySet()) {
+			VariableResolver resolver = new VariableResolver(values);
+			resolver.resolve(first);
+			assertEquals(expected, resolver.resolveAll(), "starting from " + first);
+		}
+	}
+
+	@Test
+	void resolvesLongChainWithoutRecursing() {
+		Map<String, String> values = chain("link", "#123456");
+
+		Map<String, String> resolved = new VariableResolver(values).resolveAll();
+
+		assertEquals(CHAIN_LENGTH, resolved.size());
+		for (String value : resolved.values()) {
+			assertEquals("#123456", value);
+		}
+		assertEquals("#123456", new VariableResolver(values).resolve("link0"));
+	}
+
+	@Test
+	void resolvesLongChainNextToCycle() {
+		Map<String, String> values = chain("link", "var(--loop-a, var(--fallback))");
+		values.putAll(values("loop-a", "var(--loop-b)", "loop-b", "var(--loop-a)", "fallback", "teal"));
+		values.putAll(chain("dead", "var(--loop-b)"));
+
+		VariableResolver resolver = new VariableResolver(values);
+		Map<String, String> resolved = resolver.resolveAll();
+
+		assertEquals("teal", resolved.get("link0"));
+		assertNull(resolved.get("dead0"));
+		assertTrue(resolver.isCyclic("loop-a"));
+		assertTrue(resolver.isCyclic("loop-b"));
+		assertFalse(resolver.isCyclic("link0"));
+		assertFalse(resolver.isCyclic("dead0"));
+	}
+
+	@Test
+	void reusesKnownValues() {
+		Map<String, String> known = new HashMap<>();
+		known.put("b", "known");
+		known.put("c", null);
+
+		VariableResolver resolver = new VariableResolver(values(
+			"a", "var(--b) var(--c, x)",
+			"b", "raw",
+			"c", "raw"), known);
+
+		assertEquals("known x", resolver.resolve("a"));
+	}
+
+	@Test
+	void listsReferencesIncludingFallbacks() {
+		assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b", "c")),
+			VariableResolver.references("var(--a, var(--b)) calc(var( --c ) * 2) var(--a)"));
+		assertTrue(VariableResolver.references("#fff").isEmpty());
+	}
+}
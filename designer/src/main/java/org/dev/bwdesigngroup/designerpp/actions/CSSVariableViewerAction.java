@@ -3,19 +3,30 @@ package org.dev.bwdesigngroup.designerpp.actions;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.datatransfer.StringSelection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
 
 import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
-import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusRPC;
-import org.dev.bwdesigngroup.designerpp.utils.ParseColor;
+import org.dev.bwdesigngroup.designerpp.common.utils.ColorValueCache;
+import org.dev.bwdesigngroup.designerpp.common.utils.IncrementalResolver;
+import org.dev.bwdesigngroup.designerpp.common.utils.ParseColor;
+import org.dev.bwdesigngroup.designerpp.utils.ColorCache;
+import org.dev.bwdesigngroup.designerpp.utils.ThemeDataClient;
+import org.dev.bwdesigngroup.designerpp.utils.VariableSearchIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.inductiveautomation.ignition.client.gateway_interface.ModuleRPCFactory;
 import com.inductiveautomation.ignition.client.util.action.BaseAction;
 import com.inductiveautomation.ignition.common.gson.JsonElement;
 import com.inductiveautomation.ignition.common.gson.JsonObject;
@@ -31,8 +42,21 @@ import static com.inductiveautomation.ignition.common.BundleUtil.i18n;
  */
 public class CSSVariableViewerAction extends BaseAction {
     private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".cssVariableViewer");
+    private static final int NEAREST_COLOR_COUNT = 20;
+    private static final int ROW_BATCH_SIZE = 100;
+    private static final int KEEP_THEME_DATA_DELAY_MS = 30_000;
     private final DesignerContext context;
+    private final ThemeDataClient themeDataClient = new ThemeDataClient();
     private JFrame cssViewerFrame;
+    private JList<ThemeListModel.Row> themeList;
+    private ThemeListModel listModel;
+    private JTextField searchField;
+    private JButton compareThemesButton;
+    private JLabel statusLabel;
+    private final Set<SwingWorker<?, ?>> activeWorkers = new HashSet<>();
+    private VariableSearchIndex searchIndex;
+    private boolean searchIndexLoading;
+    private Timer keepThemeDataTimer;
     private final List<String> defaultThemes = DesignerPlusPlusConstants.IGNITION_DEFAULT_THEMES;
 
     /**
@@ -49,8 +73,10 @@ public class CSSVariableViewerAction extends BaseAction {
     }
 
     /**
-     * Invoked when the action is performed. This method retrieves CSS data from the gateway
-     * and creates the GUI to display the CSS variables.
+     * Invoked when the action is performed. The frame is shown right away in a loading state and the theme index is
+     * fetched in the background, so the designer stays responsive however long the gateway takes. One collapsed
+     * group is added to the list per theme as the index arrives, and a theme's variables are only fetched when its
+     * group is expanded.
      * 
      * @param e The action event that triggered this method.
      */
@@ -62,23 +88,16 @@ public class CSSVariableViewerAction extends BaseAction {
             cssViewerFrame.requestFocus();
             return;
         }
-        
-		DesignerPlusPlusRPC rpc = ModuleRPCFactory.create(DesignerPlusPlusConstants.MODULE_ID, DesignerPlusPlusRPC.class);
-		JsonObject cssData = rpc.getCSSData();
-        if (cssData != null) {
-            logger.debug("CSS Data retrieved successfully, creating GUI");
-            createAndShowGUI(cssData);
-        } else {
-            logger.error("Failed to retrieve CSS Data from the gateway");
-        }
-	}
 
-        /**
-         * Creates and displays the CSS Variable Viewer GUI with variables in order.
-         * 
-         * @param cssData The JSON object containing CSS variable data.
-         */
-        private void createAndShowGUI(JsonObject cssData) {
+        createAndShowGUI();
+        loadThemeIndex();
+    }
+
+    /**
+     * Creates and displays the CSS Variable Viewer GUI in its loading state. Theme groups are added by
+     * {@link #loadThemeIndex()}.
+     */
+    private void createAndShowGUI() {
         logger.debug("Creating and showing CSS Variable Viewer GUI");
 
         cssViewerFrame = new JFrame("CSS Variable Viewer");
@@ -88,7 +107,16 @@ public class CSSVariableViewerAction extends BaseAction {
         cssViewerFrame.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosed(WindowEvent e) {
+                cancelWorkers();
+                if (keepThemeDataTimer != null) {
+                    keepThemeDataTimer.stop();
+                    keepThemeDataTimer = null;
+                }
                 cssViewerFrame = null;
+                themeList = null;
+                listModel = null;
+                searchIndex = null;
+                searchIndexLoading = false;
                 logger.debug("CSS Variable Viewer frame closed and reference cleared");
             }
         });
@@ -101,129 +129,858 @@ public class CSSVariableViewerAction extends BaseAction {
             Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
             cssViewerFrame.setLocation((screenSize.width - cssViewerFrame.getWidth()) / 2, (screenSize.height - cssViewerFrame.getHeight()) / 2);
         }
-        JPanel mainPanel = new JPanel();
-        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        listModel = new ThemeListModel();
+        themeList = createThemeList(listModel);
+        searchIndex = null;
+        statusLabel = new JLabel("Loading themes...");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+
+        compareThemesButton = new JButton("Compare Themes...");
+        compareThemesButton.setEnabled(false);
+        compareThemesButton.addActionListener(e -> showCompareDialog(themeNames()));
+        JButton nearestColorButton = new JButton("Find by Color...");
+        nearestColorButton.addActionListener(e -> showNearestColorDialog());
+        searchField = new JTextField(20);
+        searchField.setToolTipText("Filter by variable name, value or resolved value");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
 
-        JsonObject themes = cssData.getAsJsonObject("themes");
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
 
-        for (Map.Entry<String, JsonElement> themeEntry : themes.entrySet()) {
-            String themeName = themeEntry.getKey();
-            JsonObject theme = themeEntry.getValue().getAsJsonObject();
-            JsonObject variables;
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        toolBar.add(new JLabel("Filter: "));
+        toolBar.add(searchField);
+        toolBar.addSeparator();
+        toolBar.add(compareThemesButton);
+        toolBar.add(nearestColorButton);
+
+        JScrollPane scrollPane = new JScrollPane(themeList);
+        cssViewerFrame.add(toolBar, BorderLayout.NORTH);
+        cssViewerFrame.add(scrollPane, BorderLayout.CENTER);
+        cssViewerFrame.add(statusLabel, BorderLayout.SOUTH);
+        cssViewerFrame.setVisible(true);
+    }
 
-            if (theme.has("variables.css")) {
-                variables = theme.getAsJsonObject("variables.css");
+    /**
+     * Creates the list that shows every theme. Rows have a fixed height and width so the list lays itself out without
+     * measuring any row, and a single renderer and mouse handler serve every row, so only the rows scrolled into view
+     * are ever painted however many variables the themes hold.
+     * 
+     * @param model The model of the list.
+     * @return The list.
+     */
+    private JList<ThemeListModel.Row> createThemeList(ThemeListModel model) {
+        JList<ThemeListModel.Row> list = new JList<ThemeListModel.Row>(model) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true;
             }
-            else if (theme.has("styles.css")) {
-                variables = theme.getAsJsonObject("styles.css");
+        };
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new ThemeListCellRenderer());
+        list.setFixedCellHeight(ThemeListCellRenderer.rowHeight(list));
+        list.setFixedCellWidth(1);
+
+        JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem findUsagesItem = new JMenuItem("Find Usages");
+        findUsagesItem.addActionListener(e -> {
+            ThemeListModel.Row row = list.getSelectedValue();
+            if (row instanceof ThemeListModel.Variable) {
+                showUsages(((ThemeListModel.Variable) row).name);
             }
-            else {
-                continue;
+        });
+        popupMenu.add(findUsagesItem);
+        popupMenu.addSeparator();
+        JMenuItem whatIfItem = new JMenuItem("Set What-If Value...");
+        whatIfItem.addActionListener(e -> {
+            ThemeListModel.Row row = list.getSelectedValue();
+            if (row instanceof ThemeListModel.Variable) {
+                editWhatIfValue((ThemeListModel.Variable) row);
+            }
+        });
+        popupMenu.add(whatIfItem);
+        JMenuItem resetWhatIfItem = new JMenuItem("Reset What-If Value");
+        resetWhatIfItem.addActionListener(e -> {
+            ThemeListModel.Row row = list.getSelectedValue();
+            if (row instanceof ThemeListModel.Variable) {
+                applyWhatIfValue((ThemeListModel.Variable) row, null);
+            }
+        });
+        popupMenu.add(resetWhatIfItem);
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    activateRow(rowAt(e));
+                }
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                maybeShowPopup(e);
             }
 
-            Map<String, String> resolved = new LinkedHashMap<>();
-            for (Map.Entry<String, JsonElement> varEntry : variables.entrySet()) {
-                resolved.put(varEntry.getKey(), varEntry.getValue().getAsString());
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                maybeShowPopup(e);
             }
 
-            // Container for collapsible content
-            JPanel sectionPanel = new JPanel();
-            sectionPanel.setLayout(new BoxLayout(sectionPanel, BoxLayout.Y_AXIS));
-            sectionPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+            private void maybeShowPopup(MouseEvent e) {
+                if (!e.isPopupTrigger()) {
+                    return;
+                }
+                int index = list.locationToIndex(e.getPoint());
+                ThemeListModel.Row row = rowAt(e);
+                if (row instanceof ThemeListModel.Variable) {
+                    ThemeListModel.Variable variable = (ThemeListModel.Variable) row;
+                    whatIfItem.setEnabled(variable.group.complete);
+                    resetWhatIfItem.setEnabled(variable.overridden);
+                    list.setSelectedIndex(index);
+                    popupMenu.show(list, e.getX(), e.getY());
+                }
+            }
 
-            for (Map.Entry<String, String> entry : resolved.entrySet()) {
-                String varName = "var(--" + entry.getKey() + ")";
-                String rawValue = entry.getValue();
+            private ThemeListModel.Row rowAt(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index < 0 || !list.getCellBounds(index, index).contains(e.getPoint())) {
+                    return null;
+                }
+                return model.getElementAt(index);
+            }
+        });
+        list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "activateRow");
+        list.getActionMap().put("activateRow", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                activateRow(list.getSelectedValue());
+            }
+        });
+        return list;
+    }
 
-                // Resolve the value only for color detection and parsing
-                String finalValue = resolveColorValue(rawValue, resolved, 0);
+    /**
+     * Expands or collapses a theme group, or copies a variable reference to the clipboard.
+     * 
+     * @param row The row that was clicked, or null if no row was clicked.
+     */
+    private void activateRow(ThemeListModel.Row row) {
+        if (row instanceof ThemeListModel.Group) {
+            ThemeListModel.Group group = (ThemeListModel.Group) row;
+            if (listModel.toggle(group)) {
+                loadGroup(group);
+            }
+        } else if (row instanceof ThemeListModel.Variable) {
+            String varName = ((ThemeListModel.Variable) row).reference;
+            Toolkit.getDefaultToolkit().getSystemClipboard()
+                .setContents(new StringSelection(varName), null);
+            logger.debug("Copied {} to the clipboard", varName);
+            statusLabel.setText("Copied: " + varName);
+        }
+    }
 
-                JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT));
-                row.setAlignmentX(Component.LEFT_ALIGNMENT);
+    /**
+     * @return The names of the themes listed in the viewer.
+     */
+    private String[] themeNames() {
+        List<String> names = new ArrayList<>();
+        for (ThemeListModel.Group group : listModel.getGroups()) {
+            names.add(group.themeName);
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * Lists the themes in the background. Themes kept from an earlier session are listed first, without waiting for
+     * the gateway, and listed again if the gateway reports that they changed. If the gateway cannot be reached, the
+     * kept themes stay on screen.
+     */
+    private void loadThemeIndex() {
+        execute(new SwingWorker<JsonObject, JsonObject>() {
+            @Override
+            protected JsonObject doInBackground() {
+                JsonObject cachedIndex = themeDataClient.getCachedThemeIndex();
+                if (cachedIndex != null) {
+                    publish(cachedIndex);
+                }
 
-                // Check if this is a color value that we can parse
-                boolean isColorValue = ParseColor.isColor(finalValue);
-                Color parsedColor = null;
-                
-                if (isColorValue) {
-                    parsedColor = ParseColor.parseColor(finalValue);
+                JsonObject themeIndex;
+                try {
+                    themeIndex = themeDataClient.fetchThemeIndex(context.getProject().getName());
+                } catch (RuntimeException e) {
+                    logger.error("Failed to retrieve the theme index from the gateway", e);
+                    return null;
+                }
+                if (themeIndex != null && themeIndex.get("success").getAsBoolean()
+                        && (cachedIndex == null || themeIndex.get("version").getAsLong() != cachedIndex.get("version").getAsLong())) {
+                    publish(themeIndex);
                 }
+                return themeIndex;
+            }
 
-                if (parsedColor != null) {
-                    JLabel colorBox = new JLabel();
-                    colorBox.setBackground(parsedColor);
-                    colorBox.setOpaque(true);
-                    colorBox.setPreferredSize(new Dimension(20, 20));
-                    row.add(colorBox);
-                    row.add(Box.createHorizontalStrut(10));
+            @Override
+            protected void process(List<JsonObject> themeIndexes) {
+                if (isCancelled()) {
+                    return;
+                }
+                showThemeIndex(themeIndexes.get(themeIndexes.size() - 1));
+                if (listModel.getGroups().isEmpty()) {
+                    statusLabel.setText("No themes found");
                 } else {
-                    JLabel placeholderIcon = new JLabel("🔗");
-                    row.add(placeholderIcon);
+                    statusLabel.setText(listModel.getGroups().size() + " themes, checking the gateway for changes...");
                 }
+            }
 
-                JLabel label = new JLabel("<html>" + varName + ": <b>" + rawValue + "</b></html>");
-                row.add(label);
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                JsonObject themeIndex;
+                try {
+                    themeIndex = get();
+                } catch (Exception e) {
+                    logger.error("Failed to retrieve the theme index from the gateway", e);
+                    themeIndex = null;
+                }
+                if (themeIndex == null || !themeIndex.get("success").getAsBoolean()) {
+                    logger.error("Failed to retrieve CSS Data from the gateway");
+                    statusLabel.setText(listModel.getGroups().isEmpty()
+                        ? "Unable to load themes from the gateway"
+                        : listModel.getGroups().size() + " themes (cached, the gateway is unavailable)");
+                    return;
+                }
 
-                row.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseClicked(MouseEvent e) {
-                        Toolkit.getDefaultToolkit().getSystemClipboard()
-                            .setContents(new StringSelection(varName), null);
-                        System.out.println("Copied: " + varName);
+                int themeCount = listModel.getGroups().size();
+                logger.debug("Theme index retrieved successfully with {} themes", themeCount);
+                boolean cached = themeIndex.has("cached") && themeIndex.get("cached").getAsBoolean();
+                if (themeCount == 0) {
+                    statusLabel.setText("No themes found");
+                } else {
+                    statusLabel.setText(themeCount + " themes" + (cached ? " (cached, the gateway is unavailable)" : ""));
+                }
+                compareThemesButton.setEnabled(themeCount > 1);
+                applyFilter();
+                if (!themeDataClient.hasLocalCopy() && !searchIndexLoading) {
+                    if (themeIndex.has("defaultTheme")) {
+                        prefetchTheme(themeIndex, themeIndex.get("defaultTheme").getAsString());
                     }
-                });
+                    scheduleKeepThemeData();
+                }
+            }
+        });
+    }
 
-                row.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-                row.setToolTipText("Click to copy variable name: " + varName);
-                sectionPanel.add(row);
+    /**
+     * Lists the themes of a theme index as collapsed groups, replacing any listed before. Groups that were expanded
+     * stay expanded, and the search index is rebuilt if a filter is applied, since the themes may have changed.
+     * 
+     * @param themeIndex The theme index, as described by {@link ThemeDataClient#fetchThemeIndex(String)}.
+     */
+    private void showThemeIndex(JsonObject themeIndex) {
+        Set<String> expanded = listModel.clear();
+        searchIndex = null;
+        for (Map.Entry<String, JsonElement> themeEntry : themeIndex.getAsJsonObject("themes").entrySet()) {
+            JsonObject summary = themeEntry.getValue().getAsJsonObject();
+            ThemeListModel.Group group = listModel.addGroup(themeEntry.getKey(), summary.get("version").getAsLong(),
+                summary.get("variables").getAsInt());
+            if (expanded.contains(group.themeName)) {
+                listModel.toggle(group);
+                loadGroup(group);
+            }
+        }
+        applyFilter();
+    }
+
+    /**
+     * Starts a background worker owned by the viewer frame. Every worker still running when the frame is closed is
+     * cancelled, so a slow gateway response never updates a frame that is gone.
+     * 
+     * @param worker The worker to start.
+     */
+    private void execute(SwingWorker<?, ?> worker) {
+        activeWorkers.add(worker);
+        worker.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                activeWorkers.remove(worker);
+            }
+        });
+        worker.execute();
+    }
+
+    /**
+     * Cancels every worker started by {@link #execute(SwingWorker)} that has not finished yet.
+     */
+    private void cancelWorkers() {
+        for (SwingWorker<?, ?> worker : activeWorkers.toArray(new SwingWorker<?, ?>[0])) {
+            worker.cancel(true);
+        }
+        activeWorkers.clear();
+    }
+
+    /**
+     * Shows a dialog that compares two themes side by side. The comparison is computed on the gateway, so only the
+     * differences are transferred.
+     * 
+     * @param themeNames The names of the themes that can be compared.
+     */
+    private void showCompareDialog(String[] themeNames) {
+        JDialog dialog = new JDialog(cssViewerFrame, "Compare Themes", false);
+        dialog.setSize(700, 450);
+        dialog.setLocationRelativeTo(cssViewerFrame);
+
+        JComboBox<String> baseBox = new JComboBox<>(themeNames);
+        JComboBox<String> compareBox = new JComboBox<>(themeNames);
+        if (themeNames.length > 1) {
+            compareBox.setSelectedIndex(1);
+        }
+        JButton compareButton = new JButton("Compare");
+        JLabel summaryLabel = new JLabel(" ");
+
+        DefaultTableModel tableModel = new DefaultTableModel(new String[] {"Variable", "Status", "Base", "Compare"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
             }
+        };
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
 
-            // Collapsible wrapper
-            JPanel wrapper = new JPanel(new BorderLayout());
+        compareButton.addActionListener(e -> {
+            String baseTheme = (String) baseBox.getSelectedItem();
+            String compareTheme = (String) compareBox.getSelectedItem();
+            compareButton.setEnabled(false);
+            summaryLabel.setText("Comparing...");
 
-            JButton toggleButton = new JButton("▼ " + themeName);
-            toggleButton.setFocusPainted(false);
-            toggleButton.setContentAreaFilled(false);
-            toggleButton.setBorderPainted(false);
-            toggleButton.setHorizontalAlignment(SwingConstants.LEFT);
+            execute(new SwingWorker<JsonObject, Void>() {
+                @Override
+                protected JsonObject doInBackground() {
+                    return themeDataClient.fetchThemeComparison(baseTheme, compareTheme);
+                }
 
-            toggleButton.addActionListener(new ActionListener() {
-                boolean expanded = true;
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    compareButton.setEnabled(true);
+                    tableModel.setRowCount(0);
+                    JsonObject diff;
+                    try {
+                        diff = get();
+                    } catch (Exception ex) {
+                        logger.error("Failed to compare {} and {}", baseTheme, compareTheme, ex);
+                        diff = null;
+                    }
+                    if (diff == null || !diff.get("success").getAsBoolean()) {
+                        summaryLabel.setText("Unable to compare " + baseTheme + " and " + compareTheme);
+                        return;
+                    }
+
+                    for (JsonElement element : diff.getAsJsonArray("removed")) {
+                        JsonObject variable = element.getAsJsonObject();
+                        tableModel.addRow(new Object[] {variable.get("name").getAsString(), "Removed", variable.get("value").getAsString(), ""});
+                    }
+                    for (JsonElement element : diff.getAsJsonArray("added")) {
+                        JsonObject variable = element.getAsJsonObject();
+                        tableModel.addRow(new Object[] {variable.get("name").getAsString(), "Added", "", variable.get("value").getAsString()});
+                    }
+                    for (JsonElement element : diff.getAsJsonArray("changed")) {
+                        JsonObject variable = element.getAsJsonObject();
+                        tableModel.addRow(new Object[] {variable.get("name").getAsString(), "Changed",
+                            variable.get("baseValue").getAsString(), variable.get("compareValue").getAsString()});
+                    }
+                    for (JsonElement element : diff.getAsJsonArray("equivalent")) {
+                        JsonObject variable = element.getAsJsonObject();
+                        tableModel.addRow(new Object[] {variable.get("name").getAsString(), "Same after resolution",
+                            variable.get("baseValue").getAsString(), variable.get("compareValue").getAsString()});
+                    }
+                    summaryLabel.setText(diff.getAsJsonArray("added").size() + " added, "
+                        + diff.getAsJsonArray("removed").size() + " removed, "
+                        + diff.getAsJsonArray("changed").size() + " changed, "
+                        + diff.getAsJsonArray("equivalent").size() + " same after resolution, "
+                        + diff.get("unchanged").getAsInt() + " unchanged");
+                }
+            });
+        });
+
+        JPanel selectionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        selectionPanel.add(baseBox);
+        selectionPanel.add(new JLabel("vs"));
+        selectionPanel.add(compareBox);
+        selectionPanel.add(compareButton);
+
+        dialog.add(selectionPanel, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.add(summaryLabel, BorderLayout.SOUTH);
+        dialog.setVisible(true);
+    }
 
+    /**
+     * Shows a dialog that finds the variables whose colors look closest to a color typed, pasted or picked by the
+     * user. The lookup runs on the gateway against a color index shared by every designer.
+     */
+    private void showNearestColorDialog() {
+        JDialog dialog = new JDialog(cssViewerFrame, "Find by Color", false);
+        dialog.setSize(500, 400);
+        dialog.setLocationRelativeTo(cssViewerFrame);
+
+        JTextField colorField = new JTextField(16);
+        colorField.setToolTipText("Any CSS color, e.g. #1e88e5 or rgb(30, 136, 229)");
+        JButton pickButton = new JButton("Pick...");
+        JButton findButton = new JButton("Find");
+        JLabel summaryLabel = new JLabel(" ");
+
+        DefaultListModel<JsonObject> matches = new DefaultListModel<>();
+        JList<JsonObject> matchList = new JList<>(matches);
+        matchList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                JsonObject match = (JsonObject) value;
+                super.getListCellRendererComponent(list, "<html>" + match.get("theme").getAsString() + ": var(--"
+                    + match.get("name").getAsString() + ") <b>" + match.get("value").getAsString() + "</b> (distance "
+                    + match.get("distance").getAsDouble() + ")</html>", index, isSelected, cellHasFocus);
+                setIcon(ColorCache.swatch(match.get("argb").getAsInt()));
+                return this;
+            }
+        });
+        matchList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                JsonObject match = matchList.getSelectedValue();
+                if (e.getClickCount() == 2 && match != null) {
+                    String varName = "var(--" + match.get("name").getAsString() + ")";
+                    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(varName), null);
+                    summaryLabel.setText("Copied: " + varName);
+                }
+            }
+        });
+
+        Runnable find = () -> {
+            String color = colorField.getText().trim();
+            if (color.isEmpty()) {
+                return;
+            }
+            findButton.setEnabled(false);
+            summaryLabel.setText("Searching...");
+
+            execute(new SwingWorker<JsonObject, Void>() {
                 @Override
-                public void actionPerformed(ActionEvent e) {
-                    expanded = !expanded;
-                    sectionPanel.setVisible(expanded);
-                    toggleButton.setText((expanded ? "▼ " : "► ") + themeName);
-                    mainPanel.revalidate();
+                protected JsonObject doInBackground() {
+                    return themeDataClient.fetchNearestColors(color, NEAREST_COLOR_COUNT);
+                }
+
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    findButton.setEnabled(true);
+                    matches.clear();
+                    JsonObject result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        logger.error("Failed to find colors near {}", color, ex);
+                        result = null;
+                    }
+                    if (result == null || !result.get("success").getAsBoolean()) {
+                        summaryLabel.setText(result != null && result.has("error")
+                            ? result.get("error").getAsString() : "Unable to search for " + color);
+                        return;
+                    }
+                    for (JsonElement element : result.getAsJsonArray("matches")) {
+                        matches.addElement(element.getAsJsonObject());
+                    }
+                    summaryLabel.setText(matches.size() + " closest variables, double-click to copy");
                 }
             });
+        };
+        findButton.addActionListener(e -> find.run());
+        colorField.addActionListener(e -> find.run());
+        pickButton.addActionListener(e -> {
+            Color picked = JColorChooser.showDialog(dialog, "Pick a Color", Color.WHITE);
+            if (picked != null) {
+                colorField.setText(String.format("#%06x", picked.getRGB() & 0xFFFFFF));
+                find.run();
+            }
+        });
 
-            wrapper.add(toggleButton, BorderLayout.NORTH);
-            wrapper.add(sectionPanel, BorderLayout.CENTER);
-            mainPanel.add(wrapper);
+        JPanel queryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        queryPanel.add(new JLabel("Color: "));
+        queryPanel.add(colorField);
+        queryPanel.add(pickButton);
+        queryPanel.add(findButton);
+
+        dialog.add(queryPanel, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(matchList), BorderLayout.CENTER);
+        dialog.add(summaryLabel, BorderLayout.SOUTH);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Fetches a theme in the background the first time its group is needed and appends its variables to the list on
+     * the event thread in batches of {@value #ROW_BATCH_SIZE} rows, so large themes never hold up the designer.
+     * 
+     * @param group The group to fill.
+     */
+    private void loadGroup(ThemeListModel.Group group) {
+        if (group.loaded) {
+            return;
         }
+        group.loaded = true;
+        listModel.setMessage(group, "Loading...");
 
-        JScrollPane scrollPane = new JScrollPane(mainPanel);
-        cssViewerFrame.add(scrollPane);
-        cssViewerFrame.setVisible(true);
+        execute(new SwingWorker<Boolean, List<ThemeListModel.Variable>>() {
+            @Override
+            protected Boolean doInBackground() {
+                JsonObject theme = themeDataClient.fetchTheme(group.themeName, group.themeVersion);
+                if (theme == null || !theme.get("success").getAsBoolean()) {
+                    return false;
+                }
+
+                // Values and colors are resolved on the gateway, so nothing needs to be parsed here
+                JsonObject resolved = theme.has("resolved") ? theme.getAsJsonObject("resolved") : new JsonObject();
+                List<ThemeListModel.Variable> batch = new ArrayList<>(ROW_BATCH_SIZE);
+                for (Map.Entry<String, String> entry : flattenVariables(theme.getAsJsonObject("theme")).entrySet()) {
+                    if (isCancelled()) {
+                        return false;
+                    }
+                    JsonObject resolvedValue = resolved.getAsJsonObject(entry.getKey());
+                    Integer argb = resolvedValue != null && resolvedValue.has("argb") ? resolvedValue.get("argb").getAsInt() : null;
+                    batch.add(new ThemeListModel.Variable(group, entry.getKey(), entry.getValue(), argb == null ? null : ColorCache.swatch(argb)));
+                    if (batch.size() == ROW_BATCH_SIZE) {
+                        publish(batch);
+                        batch = new ArrayList<>(ROW_BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    publish(batch);
+                }
+                return true;
+            }
+
+            @Override
+            protected void process(List<List<ThemeListModel.Variable>> batches) {
+                if (isCancelled()) {
+                    return;
+                }
+                List<ThemeListModel.Variable> variables = new ArrayList<>();
+                for (List<ThemeListModel.Variable> batch : batches) {
+                    variables.addAll(batch);
+                }
+                listModel.addVariables(group, variables);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                boolean success;
+                try {
+                    success = get();
+                } catch (Exception e) {
+                    logger.error("Failed to load theme {} from the gateway", group.themeName, e);
+                    success = false;
+                }
+                group.complete = success;
+                listModel.setMessage(group, success ? null : "Unable to load theme " + group.themeName);
+                if (searchIndex != null) {
+                    applyFilter();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows only the rows matching the filter text. The first non-empty filter loads every theme in the background
+     * and builds the search index, after which each keystroke is a single index lookup that only changes which rows
+     * of the list model are visible.
+     */
+    private void applyFilter() {
+        if (searchField == null || listModel == null) {
+            return;
+        }
+        String query = searchField.getText();
+        if (searchIndex == null) {
+            if (!query.trim().isEmpty()) {
+                loadSearchIndex();
+            }
+            return;
+        }
+
+        BitSet matches = searchIndex.search(query);
+        if (matches == null) {
+            listModel.setFilter(null);
+            return;
+        }
+        Map<String, Set<String>> matchedNames = new HashMap<>();
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            matchedNames.computeIfAbsent(searchIndex.getTheme(id), name -> new HashSet<>()).add(searchIndex.getName(id));
+        }
+        listModel.setFilter(matchedNames);
+    }
+
+    /**
+     * Fetches every theme and builds the search index in the background, then loads every group so that matches in
+     * collapsed themes can be shown.
+     */
+    private void loadSearchIndex() {
+        if (searchIndexLoading) {
+            return;
+        }
+        searchIndexLoading = true;
+
+        execute(new SwingWorker<VariableSearchIndex, Void>() {
+            @Override
+            protected VariableSearchIndex doInBackground() {
+                JsonObject cssData = themeDataClient.fetchCSSData();
+                if (cssData == null || !cssData.get("success").getAsBoolean()) {
+                    return null;
+                }
+                return new VariableSearchIndex(cssData.getAsJsonObject("themes"), cssData.getAsJsonObject("resolved"));
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                searchIndexLoading = false;
+                VariableSearchIndex index;
+                try {
+                    index = get();
+                } catch (Exception e) {
+                    logger.error("Failed to build the variable search index", e);
+                    index = null;
+                }
+                if (index == null || cssViewerFrame == null) {
+                    return;
+                }
+
+                logger.debug("Built variable search index over {} variables", index.size());
+                searchIndex = index;
+                for (ThemeListModel.Group group : listModel.getGroups()) {
+                    loadGroup(group);
+                }
+                applyFilter();
+            }
+        });
+    }
+
+    /**
+     * Fetches a theme in the background so that expanding its group is instant.
+     * 
+     * @param themeIndex The JSON object containing the theme index.
+     * @param themeName The name of the theme to prefetch.
+     */
+    private void prefetchTheme(JsonObject themeIndex, String themeName) {
+        JsonObject summary = themeIndex.getAsJsonObject("themes").getAsJsonObject(themeName);
+        if (summary == null) {
+            return;
+        }
+        long themeVersion = summary.get("version").getAsLong();
+
+        execute(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                themeDataClient.fetchTheme(themeName, themeVersion);
+                logger.debug("Prefetched theme {}", themeName);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Keeps the full theme data for the next designer session once the viewer has been idle for a while, so that the
+     * first open only transfers the index and the themes that are expanded. The download is put off again while
+     * another worker is running, and skipped if searching has already fetched the full data.
+     */
+    private void scheduleKeepThemeData() {
+        if (keepThemeDataTimer != null) {
+            return;
+        }
+        keepThemeDataTimer = new Timer(KEEP_THEME_DATA_DELAY_MS, e -> {
+            if (!activeWorkers.isEmpty()) {
+                return;
+            }
+            ((Timer) e.getSource()).stop();
+            if (cssViewerFrame != null && !themeDataClient.hasLocalCopy()) {
+                keepThemeData();
+            }
+        });
+        keepThemeDataTimer.start();
+    }
+
+    /**
+     * Fetches the full theme data in the background so that it is kept for the next designer session, which can then
+     * list the themes without waiting for the gateway.
+     */
+    private void keepThemeData() {
+        execute(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                try {
+                    themeDataClient.fetchCSSData();
+                } catch (RuntimeException e) {
+                    logger.debug("Unable to fetch the theme data to keep for the next session", e);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Asks for a what-if value for a variable and applies it. Leaving the value empty restores the theme's value.
+     * 
+     * @param variable The variable to try another value for.
+     */
+    private void editWhatIfValue(ThemeListModel.Variable variable) {
+        Object value = JOptionPane.showInputDialog(cssViewerFrame,
+            "Value to try for --" + variable.name + ". It is only applied in this viewer, no CSS file is changed.\n"
+                + "Leave it empty to restore the theme's value.",
+            "Set What-If Value", JOptionPane.PLAIN_MESSAGE, null, null, variable.rawValue);
+        if (value == null) {
+            return;
+        }
+        String trimmed = value.toString().trim();
+        applyWhatIfValue(variable, trimmed.isEmpty() ? null : trimmed);
     }
 
     /**
-     * Resolves a color value, handling variable references recursively.
+     * Applies a what-if value to a variable and updates every variable that depends on it. The theme's variables are
+     * resolved once, the first time a value is tried in it, after which each change only resolves and repaints the
+     * variables that reference the changed one, directly or not.
      * 
-     * @param value The color value to resolve.
-     * @param map The map of variable names to values.
-     * @param depth The current recursion depth (to prevent infinite loops).
-     * @return The resolved color value.
+     * @param variable The variable to change.
+     * @param value The value to try, or null to restore the theme's value.
      */
-    private static String resolveColorValue(String value, Map<String, String> map, int depth) {
-        if (depth > 10) return value;
+    private void applyWhatIfValue(ThemeListModel.Variable variable, String value) {
+        ThemeListModel.Group group = variable.group;
+        if (group.resolver == null) {
+            Map<String, String> rawValues = new LinkedHashMap<>();
+            for (ThemeListModel.Variable member : group.variables) {
+                rawValues.put(member.name, member.rawValue);
+            }
+            group.resolver = new IncrementalResolver(rawValues);
+        }
+
+        long start = System.nanoTime();
+        Set<String> changedNames = value == null ? group.resolver.reset(variable.name) : group.resolver.setValue(variable.name, value);
+        List<ThemeListModel.Variable> changed = new ArrayList<>(changedNames.size());
+        for (String name : changedNames) {
+            ThemeListModel.Variable member = group.variablesByName.get(name);
+            if (member == null) {
+                continue;
+            }
+            long argb = ColorValueCache.parseArgb(group.resolver.getResolvedValue(name));
+            member.rawValue = group.resolver.getRawValue(name);
+            member.overridden = group.resolver.isOverridden(name);
+            member.swatch = argb == ParseColor.NOT_A_COLOR ? null : ColorCache.swatch((int) argb);
+            changed.add(member);
+        }
+        listModel.variablesChanged(changed);
+
+        logger.debug("Applied what-if value for {} in {}, {} variables changed in {} ms", variable.name, group.themeName,
+            changed.size(), (System.nanoTime() - start) / 1_000_000.0);
+        statusLabel.setText(value == null
+            ? "Restored --" + variable.name + " in " + group.themeName + ", " + (changed.size() - 1) + " dependent variables changed"
+            : "Trying --" + variable.name + " in " + group.themeName + ", " + (changed.size() - 1) + " dependent variables changed");
+    }
 
-        if (value.startsWith("var(") && value.endsWith(")")) {
-            String referenced = map.getOrDefault(value, "");
-            return resolveColorValue(referenced, map, depth + 1);
+    /**
+     * Looks up where a variable is used in the background and lists the results in a dialog.
+     * 
+     * @param variableName The variable name, without the leading dashes.
+     */
+    private void showUsages(String variableName) {
+        execute(new SwingWorker<JsonObject, Void>() {
+            @Override
+            protected JsonObject doInBackground() {
+                return themeDataClient.fetchVariableUsages(variableName);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                JsonObject result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    logger.error("Failed to retrieve usages of {} from the gateway", variableName, e);
+                    result = null;
+                }
+                if (result == null || !result.get("success").getAsBoolean()) {
+                    JOptionPane.showMessageDialog(cssViewerFrame, "Unable to find usages of --" + variableName,
+                        "Find Usages", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                DefaultListModel<String> usages = new DefaultListModel<>();
+                for (JsonElement element : result.getAsJsonArray("usages")) {
+                    JsonObject usage = element.getAsJsonObject();
+                    StringBuilder text = new StringBuilder()
+                        .append(usage.get("project").getAsString()).append(": ")
+                        .append(usage.get("type").getAsString()).append(' ')
+                        .append(usage.get("path").getAsString());
+                    if (usage.has("component")) {
+                        text.append(" › ").append(usage.get("component").getAsString());
+                    }
+                    text.append(" · ").append(usage.get("property").getAsString());
+                    usages.addElement(text.toString());
+                }
+
+                boolean indexing = result.has("indexing") && result.get("indexing").getAsBoolean();
+                String title = "Usages of --" + variableName + " (" + usages.size() + ")"
+                    + (indexing ? ", gateway still indexing projects" : "");
+                if (usages.isEmpty()) {
+                    JOptionPane.showMessageDialog(cssViewerFrame, indexing
+                        ? "No usages of --" + variableName + " found yet, the gateway is still indexing projects"
+                        : "No views or style classes use --" + variableName,
+                        title, JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                JScrollPane scrollPane = new JScrollPane(new JList<>(usages));
+                scrollPane.setPreferredSize(new Dimension(500, 300));
+                JOptionPane.showMessageDialog(cssViewerFrame, scrollPane, title, JOptionPane.PLAIN_MESSAGE);
+            }
+        });
+    }
+
+    /**
+     * Merges the variables of a theme into one map. A theme directory holds one object of variables per file,
+     * a root-level theme file holds its variables directly.
+     * 
+     * @param theme The theme data.
+     * @return The raw variable values keyed by variable name, with later files taking precedence.
+     */
+    private static Map<String, String> flattenVariables(JsonObject theme) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> member : theme.entrySet()) {
+            if (member.getValue().isJsonObject()) {
+                for (Map.Entry<String, JsonElement> variable : member.getValue().getAsJsonObject().entrySet()) {
+                    variables.put(variable.getKey(), variable.getValue().getAsString());
+                }
+            } else {
+                variables.put(member.getKey(), member.getValue().getAsString());
+            }
         }
-        return value;
+        return variables;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package org.dev.bwdesigngroup.designerpp.actions;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import javax.swing.UIManager;
+
+/**
+ * ThemeListCellRenderer paints the rows of a {@link ThemeListModel}. One instance is shared by every row: it paints
+ * the shared swatch of the row's color and the text directly instead of laying out labels or HTML, so painting a row
+ * costs a few draw calls and allocates nothing per color.
+ *
+ * @author Aaron Rai
+ */
+class ThemeListCellRenderer extends JComponent implements ListCellRenderer<ThemeListModel.Row> {
+    private static final int SWATCH_SIZE = 16;
+    private static final int INDENT = 24;
+    private static final int GAP = 8;
+
+    private ThemeListModel model;
+    private ThemeListModel.Row row;
+    private boolean selected;
+    private Color selectionForeground;
+    private Font boldFont;
+    private Font italicFont;
+
+    /**
+     * @param list The list the renderer is used by.
+     * @return The height every row is painted with, so the list never measures rows one by one.
+     */
+    static int rowHeight(JList<?> list) {
+        return Math.max(SWATCH_SIZE + 4, list.getFontMetrics(list.getFont()).getHeight() + 4);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends ThemeListModel.Row> list, ThemeListModel.Row value,
+            int index, boolean isSelected, boolean cellHasFocus) {
+        this.model = (ThemeListModel) list.getModel();
+        this.row = value;
+        this.selected = isSelected;
+        Font font = list.getFont();
+        if (boldFont == null || !boldFont.getFamily().equals(font.getFamily()) || boldFont.getSize() != font.getSize()) {
+            boldFont = font.deriveFont(Font.BOLD);
+            italicFont = font.deriveFont(Font.ITALIC);
+        }
+        setFont(font);
+        setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+        setForeground(list.getForeground());
+        selectionForeground = list.getSelectionForeground();
+
+        if (value instanceof ThemeListModel.Variable) {
+            ThemeListModel.Variable variable = (ThemeListModel.Variable) value;
+            setToolTipText(variable.reference + ": " + variable.rawValue
+                + (variable.overridden ? " (what-if value, not saved)" : "")
+                + " (click to copy, right-click to find usages or try another value)");
+        } else if (value instanceof ThemeListModel.Group) {
+            setToolTipText("Click to expand or collapse");
+        } else {
+            setToolTipText(null);
+        }
+        return this;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(0, SWATCH_SIZE + 4);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, getWidth(), getHeight());
+
+        Color textColor = selected ? selectionForeground : getForeground();
+        FontMetrics metrics = g2.getFontMetrics(getFont());
+        int baseline = (getHeight() - metrics.getHeight()) / 2 + metrics.getAscent();
+
+        if (row instanceof ThemeListModel.Group) {
+            ThemeListModel.Group group = (ThemeListModel.Group) row;
+            boolean open = model.isExpanded(group);
+            String count = model.isFiltered()
+                ? " (" + model.getMatchCount(group) + " of " + group.variableCount + ")"
+                : " (" + group.variableCount + ")";
+            g2.setFont(boldFont);
+            g2.setColor(textColor);
+            g2.drawString((open ? "▼ " : "► ") + group.themeName + count, 4, baseline);
+        } else if (row instanceof ThemeListModel.Message) {
+            Color disabled = UIManager.getColor("Label.disabledForeground");
+            g2.setFont(italicFont);
+            g2.setColor(selected || disabled == null ? textColor : disabled);
+            g2.drawString(((ThemeListModel.Message) row).text, INDENT, baseline);
+        } else if (row instanceof ThemeListModel.Variable) {
+            ThemeListModel.Variable variable = (ThemeListModel.Variable) row;
+            int x = INDENT;
+            int swatchY = (getHeight() - SWATCH_SIZE) / 2;
+            if (variable.swatch != null) {
+                variable.swatch.paintIcon(this, g2, x, swatchY);
+            } else {
+                g2.setFont(getFont());
+                g2.setColor(textColor);
+                g2.drawString("🔗", x, baseline);
+            }
+            x += SWATCH_SIZE + GAP;
+
+            String label = variable.reference + ": ";
+            g2.setFont(getFont());
+            g2.setColor(textColor);
+            g2.drawString(label, x, baseline);
+            x += metrics.stringWidth(label);
+            g2.setFont(boldFont);
+            g2.drawString(variable.rawValue, x, baseline);
+            if (variable.overridden) {
+                x += g2.getFontMetrics(boldFont).stringWidth(variable.rawValue);
+                g2.setFont(italicFont);
+                g2.drawString("  (what-if)", x, baseline);
+            }
+        }
+    }
+}
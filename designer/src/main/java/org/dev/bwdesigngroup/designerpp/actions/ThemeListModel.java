@@ -0,0 +1,398 @@
+package org.dev.bwdesigngroup.designerpp.actions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.AbstractListModel;
+import javax.swing.Icon;
+
+import org.dev.bwdesigngroup.designerpp.common.utils.IncrementalResolver;
+
+/**
+ * ThemeListModel is the list model behind the CSS Variable Viewer. Every theme is a collapsible group whose header,
+ * status message and variables are flattened into the rows of a single list, so the list only creates and paints the
+ * rows that are visible and opening the viewer does not depend on how many variables the themes hold.
+ * <p>
+ * Adding a group, loading variables into one and changing its status message only insert, replace or remove the
+ * affected rows at the group's offset and notify the list of that range, so loading a theme in batches costs time in
+ * proportion to the batch rather than to every row listed so far. Only changing the filter or clearing the groups
+ * rebuilds every row.
+ * <p>
+ * All methods must be called on the event dispatch thread.
+ *
+ * @author Aaron Rai
+ */
+class ThemeListModel extends AbstractListModel<ThemeListModel.Row> {
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private List<Row> rows = new ArrayList<>();
+    private Map<String, Set<String>> filter;
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public Row getElementAt(int index) {
+        return rows.get(index);
+    }
+
+    /**
+     * Adds a collapsed group for a theme.
+     *
+     * @param themeName The name of the theme.
+     * @param themeVersion The version in which the theme last changed.
+     * @param variableCount The number of variables in the theme.
+     * @return The new group.
+     */
+    Group addGroup(String themeName, long themeVersion, int variableCount) {
+        Group group = new Group(themeName, themeVersion, variableCount);
+        if (groups.put(themeName, group) != null) {
+            rebuild();
+            return group;
+        }
+
+        int index = rows.size();
+        group.rowCount = appendRows(group, rows);
+        if (group.rowCount > 0) {
+            fireIntervalAdded(this, index, index + group.rowCount - 1);
+        }
+        return group;
+    }
+
+    /**
+     * Removes every group, so the themes can be listed again after they changed.
+     *
+     * @return The names of the groups that were expanded.
+     */
+    Set<String> clear() {
+        Set<String> expanded = new HashSet<>();
+        for (Group group : groups.values()) {
+            if (group.expanded) {
+                expanded.add(group.themeName);
+            }
+        }
+        groups.clear();
+        rebuild();
+        return expanded;
+    }
+
+    Group getGroup(String themeName) {
+        return groups.get(themeName);
+    }
+
+    Collection<Group> getGroups() {
+        return Collections.unmodifiableCollection(groups.values());
+    }
+
+    /**
+     * Appends loaded variables to a group.
+     *
+     * @param group The group the variables belong to.
+     * @param variables The variables to append.
+     */
+    void addVariables(Group group, List<Variable> variables) {
+        group.variables.addAll(variables);
+        for (Variable variable : variables) {
+            group.variablesByName.put(variable.name, variable);
+        }
+        if (!isShowingRows(group)) {
+            group.message = null;
+            return;
+        }
+        setMessage(group, null);
+
+        Set<String> matches = filter == null ? null : filter.get(group.themeName);
+        List<Row> added = new ArrayList<>(variables.size());
+        for (Variable variable : variables) {
+            if (matches == null || matches.contains(variable.name)) {
+                added.add(variable);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        int index = offsetOf(group) + group.rowCount;
+        rows.addAll(index, added);
+        group.rowCount += added.size();
+        fireIntervalAdded(this, index, index + added.size() - 1);
+    }
+
+    /**
+     * Shows a status line such as "Loading..." in place of a group's variables, or removes it.
+     *
+     * @param group The group.
+     * @param message The message to show, or null to show the variables.
+     */
+    void setMessage(Group group, String message) {
+        boolean hadMessage = group.message != null;
+        group.message = message;
+        if (!isShowingRows(group)) {
+            return;
+        }
+
+        // The message row directly follows the group header
+        int index = offsetOf(group) + 1;
+        if (hadMessage && message != null) {
+            rows.set(index, new Message(group, message));
+            fireContentsChanged(this, index, index);
+        } else if (message != null) {
+            rows.add(index, new Message(group, message));
+            group.rowCount++;
+            fireIntervalAdded(this, index, index);
+        } else if (hadMessage) {
+            rows.remove(index);
+            group.rowCount--;
+            fireIntervalRemoved(this, index, index);
+        }
+    }
+
+    /**
+     * Expands a collapsed group or collapses an expanded one. While a filter is applied every matching group starts
+     * out expanded and collapsing it only lasts until the filter changes.
+     *
+     * @param group The group.
+     * @return True if the group is now expanded.
+     */
+    boolean toggle(Group group) {
+        if (filter != null) {
+            group.collapsedByFilter = !group.collapsedByFilter;
+        } else {
+            group.expanded = !group.expanded;
+        }
+        replaceRows(group);
+        return isExpanded(group);
+    }
+
+    /**
+     * @param group A group.
+     * @return True if the rows of the group are shown.
+     */
+    boolean isExpanded(Group group) {
+        return filter != null ? !group.collapsedByFilter : group.expanded;
+    }
+
+    /**
+     * Shows only the given variables, with every theme that has a match expanded and every other theme hidden.
+     *
+     * @param matchedNames The names of the matching variables keyed by theme name, or null to show everything.
+     */
+    void setFilter(Map<String, Set<String>> matchedNames) {
+        this.filter = matchedNames;
+        for (Group group : groups.values()) {
+            group.collapsedByFilter = false;
+        }
+        rebuild();
+    }
+
+    boolean isFiltered() {
+        return filter != null;
+    }
+
+    /**
+     * @param group A group.
+     * @return The number of the group's variables matching the current filter, or all of its variables if there is
+     * no filter.
+     */
+    int getMatchCount(Group group) {
+        if (filter == null) {
+            return group.variableCount;
+        }
+        Set<String> matches = filter.get(group.themeName);
+        return matches == null ? 0 : matches.size();
+    }
+
+    /**
+     * Repaints the rows of variables whose values were changed in place, without rebuilding the rows.
+     *
+     * @param variables The changed variables.
+     */
+    void variablesChanged(Collection<Variable> variables) {
+        Set<Row> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        changed.addAll(variables);
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            if (changed.contains(rows.get(i))) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first >= 0) {
+            fireContentsChanged(this, first, last);
+        }
+    }
+
+    /**
+     * Rebuilds the visible rows from the groups and notifies the list.
+     */
+    private void rebuild() {
+        List<Row> visible = new ArrayList<>(rows.size());
+        for (Group group : groups.values()) {
+            group.rowCount = appendRows(group, visible);
+        }
+
+        int oldSize = rows.size();
+        int newSize = visible.size();
+        rows = visible;
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+    }
+
+    /**
+     * Replaces the rows of one group and notifies the list of that group's range only.
+     */
+    private void replaceRows(Group group) {
+        int offset = offsetOf(group);
+        int oldCount = group.rowCount;
+        List<Row> groupRows = new ArrayList<>();
+        int newCount = appendRows(group, groupRows);
+
+        List<Row> range = rows.subList(offset, offset + oldCount);
+        range.clear();
+        range.addAll(groupRows);
+        group.rowCount = newCount;
+        if (Math.min(oldCount, newCount) > 0) {
+            fireContentsChanged(this, offset, offset + Math.min(oldCount, newCount) - 1);
+        }
+        if (newCount > oldCount) {
+            fireIntervalAdded(this, offset + oldCount, offset + newCount - 1);
+        } else if (newCount < oldCount) {
+            fireIntervalRemoved(this, offset + newCount, offset + oldCount - 1);
+        }
+    }
+
+    /**
+     * Appends the visible rows of a group: nothing if the filter hides it, otherwise its header followed, if it is
+     * expanded, by its status message and matching variables.
+     *
+     * @return The number of rows appended.
+     */
+    private int appendRows(Group group, List<Row> into) {
+        Set<String> matches = filter == null ? null : filter.get(group.themeName);
+        if (filter != null && (matches == null || matches.isEmpty())) {
+            return 0;
+        }
+
+        int start = into.size();
+        into.add(group);
+        if (isExpanded(group)) {
+            if (group.message != null) {
+                into.add(new Message(group, group.message));
+            }
+            for (Variable variable : group.variables) {
+                if (matches == null || matches.contains(variable.name)) {
+                    into.add(variable);
+                }
+            }
+        }
+        return into.size() - start;
+    }
+
+    /**
+     * @return True if the group is listed and expanded, so its message and variables have rows.
+     */
+    private boolean isShowingRows(Group group) {
+        return group.rowCount > 0 && isExpanded(group);
+    }
+
+    /**
+     * @return The index of the group's header row, or of where it would be if the filter hides the group.
+     */
+    private int offsetOf(Group target) {
+        int offset = 0;
+        for (Group group : groups.values()) {
+            if (group == target) {
+                break;
+            }
+            offset += group.rowCount;
+        }
+        return offset;
+    }
+
+    /**
+     * One row of the list.
+     */
+    abstract static class Row {
+    }
+
+    /**
+     * The header of one theme, which owns the theme's variables.
+     */
+    static class Group extends Row {
+        final String themeName;
+        final long themeVersion;
+        final int variableCount;
+        final List<Variable> variables = new ArrayList<>();
+        final Map<String, Variable> variablesByName = new HashMap<>();
+        boolean expanded;
+        boolean collapsedByFilter;
+        // The number of rows the group currently occupies in the list, zero while the filter hides it
+        int rowCount;
+        boolean loaded;
+        boolean complete;
+        String message;
+        IncrementalResolver resolver;
+
+        Group(String themeName, long themeVersion, int variableCount) {
+            this.themeName = themeName;
+            this.themeVersion = themeVersion;
+            this.variableCount = variableCount;
+        }
+    }
+
+    /**
+     * One variable of a theme. The value, swatch and overridden flag change when a what-if value is applied.
+     */
+    static class Variable extends Row {
+        final Group group;
+        final String name;
+        final String reference;
+        String rawValue;
+        Icon swatch;
+        boolean overridden;
+
+        /**
+         * @param group The group of the variable's theme.
+         * @param name The variable name, without the leading dashes.
+         * @param rawValue The value as written in the theme.
+         * @param swatch The shared swatch of the resolved color, or null if the variable is not a color.
+         */
+        Variable(Group group, String name, String rawValue, Icon swatch) {
+            this.group = group;
+            this.name = name;
+            this.rawValue = rawValue;
+            this.swatch = swatch;
+            this.reference = "var(--" + name + ")";
+        }
+    }
+
+    /**
+     * A status line shown in place of a group's variables.
+     */
+    static class Message extends Row {
+        final Group group;
+        final String text;
+
+        Message(Group group, String text) {
+            this.group = group;
+            this.text = text;
+        }
+    }
+}
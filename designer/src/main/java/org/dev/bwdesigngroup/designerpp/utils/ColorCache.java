@@ -0,0 +1,82 @@
+package org.dev.bwdesigngroup.designerpp.utils;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.Icon;
+
+/**
+ * ColorCache hands out one shared {@link Color} and one shared swatch {@link Icon} per packed ARGB color. Themes
+ * reuse a small palette across thousands of variables, so the viewer creates objects per distinct color rather than
+ * per row, and reopening the viewer reuses the ones already made.
+ * <p>
+ * The cache keeps the {@value #MAX_ENTRIES} most recently used colors and is safe to use from any thread.
+ *
+ * @author Aaron Rai
+ */
+public class ColorCache {
+    private static final int MAX_ENTRIES = 2048;
+
+    private static final Map<Integer, SwatchIcon> SWATCHES = new LinkedHashMap<Integer, SwatchIcon>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, SwatchIcon> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private ColorCache() {
+    }
+
+    /**
+     * @param argb A packed ARGB color.
+     * @return The shared Color for it.
+     */
+    public static Color color(int argb) {
+        return swatchIcon(argb).color;
+    }
+
+    /**
+     * @param argb A packed ARGB color.
+     * @return The shared swatch for it: a small square filled with the color and outlined in gray.
+     */
+    public static Icon swatch(int argb) {
+        return swatchIcon(argb);
+    }
+
+    private static synchronized SwatchIcon swatchIcon(int argb) {
+        return SWATCHES.computeIfAbsent(argb, key -> new SwatchIcon(new Color(key, true)));
+    }
+
+    /**
+     * A small square filled with a color, shown next to a color in a list.
+     */
+    private static class SwatchIcon implements Icon {
+        private static final int SIZE = 16;
+        private final Color color;
+
+        SwatchIcon(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.setColor(color);
+            g.fillRect(x, y, SIZE, SIZE);
+            g.setColor(Color.GRAY);
+            g.drawRect(x, y, SIZE - 1, SIZE - 1);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return SIZE;
+        }
+    }
+}
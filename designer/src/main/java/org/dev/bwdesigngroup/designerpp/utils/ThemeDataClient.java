@@ -0,0 +1,415 @@
+package org.dev.bwdesigngroup.designerpp.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusRPC;
+import org.dev.bwdesigngroup.designerpp.common.ThemeDataCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.client.gateway_interface.ModuleRPCFactory;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeDataClient keeps a designer-side copy of the gateway's theme data and the version it corresponds to.
+ * Each fetch sends that version to the gateway, which answers with "unchanged" or only the themes and files
+ * that changed, so reopening the CSS Variable Viewer does not transfer the whole payload again. Responses are
+ * requested in the compact {@link ThemeDataCodec} encoding.
+ * <p>
+ * The viewer can also load themes one at a time: {@link #fetchThemeIndex(String)} lists the themes and the version
+ * in which each last changed, and {@link #fetchTheme(String, long)} only calls the gateway if no copy of that theme
+ * version is held locally.
+ * <p>
+ * The local copy is also kept in a {@link ThemeDataStore} between designer sessions. {@link #getCachedThemeIndex()}
+ * lists the stored themes without calling the gateway, the next fetch only asks the gateway for what changed since
+ * the stored version, and if the gateway cannot be reached the stored copy is served instead.
+ * <p>
+ * Calls that bring the copy up to date are bounded by a timeout, a short one when a local copy can be served
+ * instead, and the client lock is never held while waiting for the gateway, so a slow gateway does not block
+ * reads of the local copy.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeDataClient {
+    private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeDataClient");
+    private static final long VERSION_CHECK_TIMEOUT_MILLIS = 5_000;
+    private static final long FETCH_TIMEOUT_MILLIS = 60_000;
+    private static final ExecutorService gatewayCalls = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, DesignerPlusPlusConstants.MODULE_ID + "-ThemeDataClient");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ThemeDataStore store;
+    private JsonObject themes;
+    private JsonObject resolved;
+    private long version;
+    private boolean storeLoaded;
+    private boolean confirmed;
+    private final Map<String, JsonObject> loadedThemes = new HashMap<>();
+
+    /**
+     * Constructor for the ThemeDataClient, keeping its copy in the store of the gateway the designer is connected to.
+     */
+    public ThemeDataClient() {
+        this(ThemeDataStore.forCurrentGateway());
+    }
+
+    /**
+     * Constructor for the ThemeDataClient.
+     *
+     * @param store The store the local copy is kept in between sessions.
+     */
+    public ThemeDataClient(ThemeDataStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Brings the local copy up to date with the gateway. If the gateway cannot be reached, does not answer within the
+     * timeout or cannot read its themes, the local copy is returned as it is, marked as "cached".
+     *
+     * @return The CSS data in the same shape as {@link DesignerPlusPlusRPC#getCSSData()}, or the gateway's error
+     * response if the gateway could not read its themes and there is no local copy.
+     */
+    public JsonObject fetchCSSData() {
+        long since;
+        synchronized (this) {
+            loadStore();
+            since = themes == null ? 0 : version;
+        }
+
+        JsonObject response;
+        try {
+            byte[] encoded = callGateway(() -> createRPC().getCompactCSSDataSince(since),
+                since == 0 ? FETCH_TIMEOUT_MILLIS : VERSION_CHECK_TIMEOUT_MILLIS, "send the theme data");
+            response = encoded == null ? null : ThemeDataCodec.decode(encoded).getAsJsonObject();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                if (themes == null) {
+                    throw e;
+                }
+                logger.warn("Unable to check the theme data with the gateway, using the cached copy at version {}", version, e);
+                return cssData();
+            }
+        }
+
+        synchronized (this) {
+            if (response == null || !response.get("success").getAsBoolean()) {
+                if (themes != null) {
+                    logger.warn("Gateway did not return theme data, using the cached copy at version {}", version);
+                    return cssData();
+                }
+                return response;
+            }
+
+            long previousVersion = themes == null ? 0 : version;
+            if (previousVersion != since && !(response.get("full").getAsBoolean() && response.get("version").getAsLong() > previousVersion)) {
+                // Another fetch updated the copy while we waited, so this response no longer applies to it
+                logger.debug("Discarding theme data for version {}, the copy is already at version {}", since, previousVersion);
+                return cssData();
+            }
+            applyResponse(response);
+            confirmed = true;
+            if (version != previousVersion) {
+                store.save(version, themes, resolved);
+            }
+            return cssData();
+        }
+    }
+
+    /**
+     * Fetches the theme index. With a local copy, the copy is brought up to date by {@link #fetchCSSData()}, which
+     * costs a single "unchanged" reply when nothing changed, and the index is built from it. Without one, the index
+     * is fetched from the gateway, along with the project's default session theme.
+     *
+     * @param projectName The name of the project the designer has open.
+     * @return The theme index, as described by {@link DesignerPlusPlusRPC#getThemeIndex(String)}, with "cached" set
+     * if it was built from a copy the gateway could not confirm.
+     */
+    public JsonObject fetchThemeIndex(String projectName) {
+        boolean hasCopy;
+        synchronized (this) {
+            loadStore();
+            hasCopy = themes != null;
+        }
+        if (hasCopy) {
+            JsonObject cssData = fetchCSSData();
+            if (!cssData.get("success").getAsBoolean()) {
+                return cssData;
+            }
+            synchronized (this) {
+                return themeIndex();
+            }
+        }
+        return callGateway(() -> createRPC().getThemeIndex(projectName), FETCH_TIMEOUT_MILLIS, "list the themes");
+    }
+
+    /**
+     * Lists the themes of the local copy without calling the gateway, reading the copy from the {@link ThemeDataStore}
+     * the first time.
+     *
+     * @return The theme index of the local copy, as described by {@link #fetchThemeIndex(String)}, or null if there is
+     * no local copy.
+     */
+    public synchronized JsonObject getCachedThemeIndex() {
+        loadStore();
+        return themes == null ? null : themeIndex();
+    }
+
+    /**
+     * @return True if a full copy of the theme data is held locally, so the viewer does not need to fetch one to
+     * search it or to keep it for the next session.
+     */
+    public synchronized boolean hasLocalCopy() {
+        return themes != null;
+    }
+
+    /**
+     * Returns the variables of a single theme, calling the gateway only if the requested version is not held locally.
+     *
+     * @param themeName The name of the theme.
+     * @param themeVersion The version in which the theme last changed, as reported by the theme index.
+     * @return The theme, as described by {@link DesignerPlusPlusRPC#getTheme(String)}.
+     */
+    public JsonObject fetchTheme(String themeName, long themeVersion) {
+        synchronized (this) {
+            JsonObject loaded = loadedThemes.get(themeName);
+            if (loaded != null && loaded.get("themeVersion").getAsLong() == themeVersion) {
+                return loaded;
+            }
+            if (themes != null && version >= themeVersion && themes.has(themeName)) {
+                logger.debug("Theme {} is current in the full copy at version {}", themeName, version);
+                JsonObject theme = new JsonObject();
+                theme.addProperty("success", true);
+                theme.addProperty("themeVersion", themeVersion);
+                theme.add("theme", themes.get(themeName));
+                theme.add("resolved", resolved.get(themeName));
+                return theme;
+            }
+        }
+
+        logger.debug("Fetching theme {} at version {}", themeName, themeVersion);
+        JsonObject theme = createRPC().getTheme(themeName);
+        if (theme != null && theme.get("success").getAsBoolean()) {
+            synchronized (this) {
+                loadedThemes.put(themeName, theme);
+            }
+        }
+        return theme;
+    }
+
+    /**
+     * Fetches every reference to a variable from the gateway's project-wide usage index.
+     *
+     * @param variableName The variable name, with or without the leading dashes.
+     * @return The usages, as described by {@link DesignerPlusPlusRPC#getVariableUsages(String)}.
+     */
+    public JsonObject fetchVariableUsages(String variableName) {
+        return createRPC().getVariableUsages(variableName);
+    }
+
+    /**
+     * Fetches the differences between two themes, computed on the gateway.
+     *
+     * @param baseTheme The name of the base theme.
+     * @param compareTheme The name of the theme compared against the base.
+     * @return The differences, as described by {@link DesignerPlusPlusRPC#compareThemes(String, String)}.
+     */
+    public JsonObject fetchThemeComparison(String baseTheme, String compareTheme) {
+        return createRPC().compareThemes(baseTheme, compareTheme);
+    }
+
+    /**
+     * Fetches the variables whose colors look closest to the given color, found on the gateway.
+     *
+     * @param color The color to look for.
+     * @param count The maximum number of variables to return.
+     * @return The closest variables, as described by {@link DesignerPlusPlusRPC#findNearestColors(String, int)}.
+     */
+    public JsonObject fetchNearestColors(String color, int count) {
+        return createRPC().findNearestColors(color, count);
+    }
+
+    /**
+     * Reads the local copy from the store, once, unless one was already fetched from the gateway.
+     */
+    private void loadStore() {
+        if (storeLoaded) {
+            return;
+        }
+        storeLoaded = true;
+        if (themes != null) {
+            return;
+        }
+        JsonObject stored = store.load();
+        if (stored != null) {
+            themes = stored.getAsJsonObject("themes");
+            resolved = stored.getAsJsonObject("resolved");
+            version = stored.get("version").getAsLong();
+        }
+    }
+
+    /**
+     * Builds the CSS data from the local copy. The top-level objects are copied because callers read them off the
+     * client lock while a later fetch applies changes to the local copy. Themes themselves are never changed in
+     * place, see {@link #copyOf(JsonObject)}.
+     */
+    private JsonObject cssData() {
+        JsonObject cssData = new JsonObject();
+        cssData.addProperty("success", true);
+        cssData.addProperty("version", version);
+        cssData.addProperty("cached", !confirmed);
+        cssData.add("themes", copyOf(themes));
+        cssData.add("resolved", copyOf(resolved));
+        return cssData;
+    }
+
+    /**
+     * Builds the theme index from the local copy. Every theme is reported at the version of the whole copy, which
+     * lets {@link #fetchTheme(String, long)} serve it from the copy.
+     */
+    private JsonObject themeIndex() {
+        JsonObject index = new JsonObject();
+        for (Map.Entry<String, JsonElement> themeEntry : themes.entrySet()) {
+            int fileCount = 0;
+            for (Map.Entry<String, JsonElement> member : themeEntry.getValue().getAsJsonObject().entrySet()) {
+                if (member.getValue().isJsonObject()) {
+                    fileCount++;
+                }
+            }
+            JsonObject resolvedTheme = resolved.getAsJsonObject(themeEntry.getKey());
+
+            JsonObject summary = new JsonObject();
+            summary.addProperty("files", Math.max(fileCount, 1));
+            summary.addProperty("variables", resolvedTheme == null ? 0 : resolvedTheme.size());
+            summary.addProperty("version", version);
+            index.add(themeEntry.getKey(), summary);
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("success", true);
+        result.addProperty("version", version);
+        result.addProperty("cached", !confirmed);
+        result.add("themes", index);
+        return result;
+    }
+
+    private static DesignerPlusPlusRPC createRPC() {
+        return ModuleRPCFactory.create(DesignerPlusPlusConstants.MODULE_ID, DesignerPlusPlusRPC.class);
+    }
+
+    /**
+     * Calls the gateway on a client thread and waits for the answer for at most the given time. The call is
+     * interrupted if the wait times out or the waiting thread is interrupted, e.g. because the viewer was closed.
+     *
+     * @param call The gateway call.
+     * @param timeoutMillis The longest time to wait for the answer.
+     * @param description What the gateway is asked to do, for the error message.
+     * @return The answer of the gateway.
+     * @throws IllegalStateException If the call timed out or the waiting thread was interrupted.
+     */
+    private static <T> T callGateway(Callable<T> call, long timeoutMillis, String description) {
+        Future<T> future = gatewayCalls.submit(call);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("The gateway did not " + description + " within " + timeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the gateway to " + description, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("The gateway failed to " + description, e.getCause());
+        }
+    }
+
+    /**
+     * Applies a response from {@link DesignerPlusPlusRPC#getCSSDataSince(long)} to the local copy.
+     *
+     * @param response The response from the gateway.
+     */
+    private void applyResponse(JsonObject response) {
+        long responseVersion = response.get("version").getAsLong();
+        if (response.get("unchanged").getAsBoolean()) {
+            logger.debug("Theme data unchanged at version {}", responseVersion);
+            return;
+        }
+
+        if (response.get("full").getAsBoolean()) {
+            logger.debug("Received full theme data at version {}", responseVersion);
+            themes = response.getAsJsonObject("themes");
+            resolved = response.getAsJsonObject("resolved");
+            version = responseVersion;
+            return;
+        }
+
+        logger.debug("Applying theme data delta from version {} to {}", version, responseVersion);
+        Set<String> replacedThemes = new HashSet<>();
+        if (response.has("replacedThemes")) {
+            for (JsonElement replaced : response.getAsJsonArray("replacedThemes")) {
+                replacedThemes.add(replaced.getAsString());
+            }
+        }
+        for (Map.Entry<String, JsonElement> themeEntry : response.getAsJsonObject("themes").entrySet()) {
+            // A theme added since our version may be an earlier theme of the same name that was removed and added
+            // again, so the members we still hold for it are dropped rather than merged
+            JsonObject theme = replacedThemes.contains(themeEntry.getKey())
+                ? new JsonObject()
+                : copyOf(themes.getAsJsonObject(themeEntry.getKey()));
+            for (Map.Entry<String, JsonElement> member : themeEntry.getValue().getAsJsonObject().entrySet()) {
+                theme.add(member.getKey(), member.getValue());
+            }
+            themes.add(themeEntry.getKey(), theme);
+        }
+        for (Map.Entry<String, JsonElement> themeEntry : response.getAsJsonObject("resolved").entrySet()) {
+            resolved.add(themeEntry.getKey(), themeEntry.getValue());
+        }
+        for (Map.Entry<String, JsonElement> removed : response.getAsJsonObject("removedFiles").entrySet()) {
+            if (themes.has(removed.getKey())) {
+                JsonObject theme = copyOf(themes.getAsJsonObject(removed.getKey()));
+                for (JsonElement member : removed.getValue().getAsJsonArray()) {
+                    theme.remove(member.getAsString());
+                }
+                themes.add(removed.getKey(), theme);
+            }
+        }
+        for (JsonElement removed : response.getAsJsonArray("removedThemes")) {
+            themes.remove(removed.getAsString());
+            resolved.remove(removed.getAsString());
+        }
+        version = responseVersion;
+    }
+
+    /**
+     * Copies the members of a theme, or of the themes object, into a new object. Decoded payloads share equal objects between themes (see
+     * {@link ThemeDataCodec}), so a theme is copied before it is changed rather than changed in place.
+     *
+     * @param theme The object to copy, or null.
+     * @return A new object with the same members, or an empty object if the theme is null.
+     */
+    private static JsonObject copyOf(JsonObject theme) {
+        JsonObject copy = new JsonObject();
+        if (theme != null) {
+            for (Map.Entry<String, JsonElement> member : theme.entrySet()) {
+                copy.add(member.getKey(), member.getValue());
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,120 @@
+package org.dev.bwdesigngroup.designerpp.utils;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.common.ThemeDataCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.client.gateway_interface.GatewayConnectionManager;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeDataStore keeps the last theme data received from a gateway in a local file, so the CSS Variable Viewer can
+ * show it as soon as it opens in a new designer session while the gateway is asked whether anything changed. There
+ * is one file per gateway, written in the {@link ThemeDataCodec} encoding together with the version it corresponds
+ * to.
+ * <p>
+ * The file is only a cache: a file that is missing, unreadable or written for another gateway or format is ignored,
+ * and failing to write it only costs the next session a full download.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeDataStore {
+    private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeDataStore");
+    private static final int FORMAT_VERSION = 1;
+    private static final Path CACHE_DIRECTORY = Paths.get(System.getProperty("user.home"), ".designer-plus-plus", "theme-cache");
+
+    private final String gateway;
+    private final Path file;
+
+    /**
+     * Constructor for the ThemeDataStore.
+     *
+     * @param gateway The address of the gateway the data comes from.
+     * @param file The file the data is kept in.
+     */
+    public ThemeDataStore(String gateway, Path file) {
+        this.gateway = gateway;
+        this.file = file;
+    }
+
+    /**
+     * @return A store for the gateway this designer is connected to, in the user's home directory.
+     */
+    public static ThemeDataStore forCurrentGateway() {
+        String gateway;
+        try {
+            gateway = String.valueOf(GatewayConnectionManager.getInstance().getGatewayAddress());
+        } catch (RuntimeException e) {
+            logger.debug("Unable to determine the gateway address, using a shared theme cache", e);
+            gateway = "default";
+        }
+        return new ThemeDataStore(gateway, CACHE_DIRECTORY.resolve(gateway.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin"));
+    }
+
+    /**
+     * Reads the stored theme data.
+     *
+     * @return An object with the "version", "themes" and "resolved" of the stored data, or null if nothing usable is
+     * stored for this gateway.
+     */
+    public JsonObject load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            JsonObject stored = ThemeDataCodec.decode(Files.readAllBytes(file)).getAsJsonObject();
+            if (stored.get("format").getAsInt() != FORMAT_VERSION || !gateway.equals(stored.get("gateway").getAsString())) {
+                logger.debug("Ignoring theme cache {} written for another gateway or format", file);
+                return null;
+            }
+            logger.debug("Loaded cached theme data at version {} from {}", stored.get("version").getAsLong(), file);
+            return stored;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to read the theme cache {}, it will be replaced", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the stored theme data. The file is written next to the old one and moved over it, so a designer that
+     * exits halfway through never leaves a truncated cache behind.
+     *
+     * @param version The version of the data.
+     * @param themes The raw theme data, keyed by theme name.
+     * @param resolved The resolved variables, keyed by theme name.
+     */
+    public void save(long version, JsonObject themes, JsonObject resolved) {
+        JsonObject stored = new JsonObject();
+        stored.addProperty("format", FORMAT_VERSION);
+        stored.addProperty("gateway", gateway);
+        stored.addProperty("version", version);
+        stored.add("themes", themes);
+        stored.add("resolved", resolved);
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, ThemeDataCodec.encode(stored));
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            logger.debug("Saved theme data at version {} to {}", version, file);
+        } catch (IOException e) {
+            logger.warn("Unable to write the theme cache {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.dev.bwdesigngroup.designerpp.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * VariableSearchIndex is an in-memory search index over the variable names, raw values and resolved values of every
+ * theme, so the CSS Variable Viewer can filter on every keystroke.
+ * <p>
+ * Each variable's searchable text is broken into trigrams. A query of three or more characters only checks the
+ * variables that contain every trigram of the query, found by intersecting the posting lists starting from the
+ * shortest. Shorter queries scan the text directly, which is cheap at that length. If nothing contains the query, the
+ * names are matched fuzzily instead: a name matches if it contains the query's characters in order, so "nrl10"
+ * finds "neutral-10".
+ *
+ * @author Aaron Rai
+ */
+public class VariableSearchIndex {
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private final String[] themes;
+    private final String[] names;
+    private final String[] texts;
+    private final Map<Long, int[]> postings;
+
+    /**
+     * Builds the index from the theme data returned by {@link ThemeDataClient#fetchCSSData()}.
+     *
+     * @param themes The raw theme data, keyed by theme name.
+     * @param resolved The resolved variables, keyed by theme name.
+     */
+    public VariableSearchIndex(JsonObject themes, JsonObject resolved) {
+        List<String> themeList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        List<String> textList = new ArrayList<>();
+
+        for (Map.Entry<String, JsonElement> themeEntry : themes.entrySet()) {
+            JsonObject resolvedTheme = resolved != null && resolved.has(themeEntry.getKey())
+                ? resolved.getAsJsonObject(themeEntry.getKey()) : new JsonObject();
+            Map<String, String> variables = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonElement> member : themeEntry.getValue().getAsJsonObject().entrySet()) {
+                if (member.getValue().isJsonObject()) {
+                    for (Map.Entry<String, JsonElement> variable : member.getValue().getAsJsonObject().entrySet()) {
+                        variables.put(variable.getKey(), variable.getValue().getAsString());
+                    }
+                } else {
+                    variables.put(member.getKey(), member.getValue().getAsString());
+                }
+            }
+
+            for (Map.Entry<String, String> variable : variables.entrySet()) {
+                JsonObject resolvedValue = resolvedTheme.getAsJsonObject(variable.getKey());
+                String resolvedText = resolvedValue != null && resolvedValue.has("value") ? resolvedValue.get("value").getAsString() : "";
+                themeList.add(themeEntry.getKey());
+                nameList.add(variable.getKey());
+                textList.add(("--" + variable.getKey() + FIELD_SEPARATOR + variable.getValue() + FIELD_SEPARATOR + resolvedText)
+                    .toLowerCase(Locale.ROOT));
+            }
+        }
+
+        this.themes = themeList.toArray(new String[0]);
+        this.names = nameList.toArray(new String[0]);
+        this.texts = textList.toArray(new String[0]);
+        this.postings = buildPostings(texts);
+    }
+
+    /**
+     * @return The number of indexed variables.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param id A variable id between 0 and {@link #size()}.
+     * @return The theme the variable belongs to.
+     */
+    public String getTheme(int id) {
+        return themes[id];
+    }
+
+    /**
+     * @param id A variable id between 0 and {@link #size()}.
+     * @return The variable name, without the leading dashes.
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * Finds the variables matching a query, case-insensitively.
+     *
+     * @param query The text typed by the user.
+     * @return The ids of the matching variables, or null if the query is empty and everything matches.
+     */
+    public BitSet search(String query) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+
+        BitSet matches = normalized.length() >= 3 ? searchTrigrams(normalized) : scan(normalized);
+        if (matches.isEmpty()) {
+            matches = fuzzy(normalized.startsWith("--") ? normalized.substring(2) : normalized);
+        }
+        return matches;
+    }
+
+    private BitSet searchTrigrams(String query) {
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] list = postings.get(trigram(query, i));
+            if (list == null) {
+                return new BitSet();
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        BitSet matches = new BitSet(names.length);
+        int[] shortest = lists.get(0);
+        candidates:
+        for (int id : shortest) {
+            for (int l = 1; l < lists.size(); l++) {
+                if (Arrays.binarySearch(lists.get(l), id) < 0) {
+                    continue candidates;
+                }
+            }
+            // The trigrams only narrow the candidates; confirm the query appears as a whole
+            if (texts[id].contains(query)) {
+                matches.set(id);
+            }
+        }
+        return matches;
+    }
+
+    private BitSet scan(String query) {
+        BitSet matches = new BitSet(names.length);
+        for (int id = 0; id < texts.length; id++) {
+            if (texts[id].contains(query)) {
+                matches.set(id);
+            }
+        }
+        return matches;
+    }
+
+    private BitSet fuzzy(String query) {
+        BitSet matches = new BitSet(names.length);
+        for (int id = 0; id < names.length; id++) {
+            String name = names[id];
+            int position = 0;
+            for (int i = 0; i < name.length() && position < query.length(); i++) {
+                if (Character.toLowerCase(name.charAt(i)) == query.charAt(position)) {
+                    position++;
+                }
+            }
+            if (position == query.length()) {
+                matches.set(id);
+            }
+        }
+        return matches;
+    }
+
+    private static Map<Long, int[]> buildPostings(String[] texts) {
+        Map<Long, PostingList> lists = new HashMap<>();
+        for (int id = 0; id < texts.length; id++) {
+            String text = texts[id];
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                lists.computeIfAbsent(trigram(text, i), key -> new PostingList()).add(id);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, PostingList> entry : lists.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue().ids, entry.getValue().size));
+        }
+        return postings;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * A growable, sorted list of variable ids.
+     */
+    private static class PostingList {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // Ids are added in increasing order, so a trigram repeated within one text is always the last id
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package org.dev.bwdesigngroup.designerpp.gateway;
 
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.gateway.cache.ThemeCache;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeOverviewContributor;
+import org.dev.bwdesigngroup.designerpp.gateway.routes.ThemeDataRoute;
+import org.dev.bwdesigngroup.designerpp.gateway.routes.ThemeExportRoute;
+import org.dev.bwdesigngroup.designerpp.gateway.routes.ThemeStatsRoute;
+import org.dev.bwdesigngroup.designerpp.gateway.usage.VariableUsageIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
 import javax.servlet.http.HttpServletResponse;
@@ -28,6 +38,10 @@ import com.inductiveautomation.ignition.gateway.web.pages.status.overviewmeta.Ov
 public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
     private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusGatewayHook.class);
     private static GatewayContext context;
+    private static ThemeCache themeCache;
+    private static ThemeMetrics themeMetrics;
+    private static VariableUsageIndex usageIndex;
+    private static DesignerPlusPlusRPCHandler rpcHandler;
 
     /**
      * Called to before startup. This is the chance for the module to add its extension points and update persistent
@@ -38,6 +52,8 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
     public void setup(GatewayContext context) {
         logger.info("Designer++ Gateway Hook setup started");
         DesignerPlusPlusGatewayHook.context = context;
+        // Created here rather than in startup so the status overview contributor can be handed out at any time
+        themeMetrics = new ThemeMetrics();
     }
 
     /**
@@ -47,6 +63,16 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
     @Override
     public void startup(LicenseState activationState) {
         logger.info("Starting up Designer++ Gateway Hook");
+        Path dataPath = context.getSystemManager().getDataDir().toPath()
+            .resolve("modules").resolve(DesignerPlusPlusConstants.MODULE_ID);
+        themeMetrics.register(context.getMetricRegistry());
+        themeCache = new ThemeCache(Paths.get(DesignerPlusPlusConstants.THEMES_DIRECTORY), dataPath, themeMetrics);
+        themeCache.start();
+        // Read the themes in the background so startup is not held up and the first viewer open is served warm
+        themeCache.warmUp(context.getExecutionManager());
+        usageIndex = new VariableUsageIndex(context.getProjectManager());
+        usageIndex.start();
+        rpcHandler = new DesignerPlusPlusRPCHandler(context, themeCache, usageIndex);
     }
 
     /**
@@ -56,6 +82,19 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
     @Override
     public void shutdown() {
         logger.info("Shutting down Designer++ Gateway Hook");
+        rpcHandler = null;
+        if (usageIndex != null) {
+            usageIndex.stop();
+            usageIndex = null;
+        }
+        if (themeCache != null) {
+            themeCache.stop();
+            themeCache = null;
+        }
+        if (themeMetrics != null) {
+            themeMetrics.unregister(context.getMetricRegistry());
+            themeMetrics = null;
+        }
         context = null; // Clear the context reference to help with garbage collection
     }
 
@@ -93,7 +132,9 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
      */
     @Override
     public void mountRouteHandlers(RouteGroup routes) {
-
+        new ThemeDataRoute(themeCache).mount(routes);
+        new ThemeExportRoute(themeCache).mount(routes);
+        new ThemeStatsRoute(themeMetrics).mount(routes);
     }
 
     /**
@@ -115,11 +156,11 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
     }
 
     /**
-     * Implement this method to contribute meta data to the Status section's Systems / Overview page.
+     * Contributes the theme scan, cache and getCSSData metrics to the Status section's Systems / Overview page.
      */
     @Override
     public Optional<OverviewContributor> getStatusOverviewContributor() {
-        return Optional.empty();
+        return themeMetrics == null ? Optional.empty() : Optional.of(new ThemeOverviewContributor(themeMetrics));
     }
 
     /**
@@ -166,14 +207,15 @@ public class DesignerPlusPlusGatewayHook extends AbstractGatewayModuleHook {
 
     /**
      * Returns the RPC handler for this module. This is used to handle remote procedure calls from the client.
+     * The handler holds no per-session state, so a single instance is shared by every session.
      *
      * @param session      The client request session.
      * @param projectName  The name of the project associated with the session.
-     * @return An instance of the RPC handler for this module.
+     * @return The shared RPC handler for this module.
      */
     @Override
     public Object getRPCHandler(ClientReqSession session, String projectName) {
-        logger.info("Creating RPC Handler for session: " + session.getId() + ", project: " + projectName);
-        return new DesignerPlusPlusRPCHandler(context);
+        logger.debug("Providing RPC Handler for session: {}, project: {}", session.getId(), projectName);
+        return rpcHandler;
     }
 }
@@ -1,44 +1,193 @@
 package org.dev.bwdesigngroup.designerpp.gateway;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
 import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
 import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusRPC;
-import org.dev.bwdesigngroup.designerpp.gateway.utils.CSSFileReader;
+import org.dev.bwdesigngroup.designerpp.gateway.cache.ThemeCache;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+import org.dev.bwdesigngroup.designerpp.gateway.usage.VariableUsageIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
 import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParser;
+import com.inductiveautomation.ignition.common.project.RuntimeProject;
+import com.inductiveautomation.ignition.common.project.resource.ProjectResource;
+import com.inductiveautomation.ignition.common.project.resource.ResourceType;
 import com.inductiveautomation.ignition.gateway.model.GatewayContext;
 
 
 /**
  * CSSVariableViewerRPCHandler is the server-side implementation of the CSSVariableViewerRPC interface.
  * It handles requests to retrieve CSS variable data from the themes directory and processes CSS files.
+ * A single instance is shared by every designer session, so it keeps no state of its own beyond the shared cache.
  * 
  * @author Aaron Rai
  */
 public class DesignerPlusPlusRPCHandler implements DesignerPlusPlusRPC {
+	private static final ResourceType SESSION_PROPS_TYPE = new ResourceType("com.inductiveautomation.perspective", "session-props");
+	private static final String PERSPECTIVE_DEFAULT_THEME = "light";
 	private final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".rpcHandler");
 	private final GatewayContext context;
+	private final ThemeCache themeCache;
+	private final VariableUsageIndex usageIndex;
+	private final Timer cssDataLatency;
 
 	/**
 	 * Constructor for the CSSVariableViewerRPCHandler.
 	 * 
 	 * @param context The gateway context, used to interact with the Ignition Gateway.
+	 * @param themeCache The shared cache of parsed theme data.
+	 * @param usageIndex The index of variable usages across all projects.
 	 */
-	public DesignerPlusPlusRPCHandler(GatewayContext context) {
+	public DesignerPlusPlusRPCHandler(GatewayContext context, ThemeCache themeCache, VariableUsageIndex usageIndex) {
 		this.context = context;
+		this.themeCache = themeCache;
+		this.usageIndex = usageIndex;
+		this.cssDataLatency = themeCache.getMetrics().getCSSDataLatency();
 		logger.debug("Designer++ RPC Handler initialized");
 	}
 
 	/**
-	 * Retrieves CSS data from the themes directory and processes it.
+	 * Retrieves CSS data from the shared theme cache, which only reads the themes directory for entries that
+	 * changed since the last request. The time taken is recorded in the {@link ThemeMetrics} together with the
+	 * delta and compact variants below.
 	 * 
 	 * @return A JsonObject containing the CSS variables organized by theme.
 	 */
 	@Override
 	public JsonObject getCSSData() {
 		logger.debug("getCSSData called");
-		CSSFileReader cssFileReader = new CSSFileReader();
-		return cssFileReader.readCSSFiles(DesignerPlusPlusConstants.THEMES_DIRECTORY);
+		try (Timer.Context ignored = cssDataLatency.time()) {
+			return themeCache.getCSSData();
+		}
+	}
+
+	/**
+	 * Retrieves only the CSS data that changed since the version the designer already has.
+	 * 
+	 * @param version The version of the CSS data the designer has, or 0 if it has none.
+	 * @return A JsonObject describing the changes since that version.
+	 */
+	@Override
+	public JsonObject getCSSDataSince(long version) {
+		logger.debug("getCSSDataSince called with version {}", version);
+		try (Timer.Context ignored = cssDataLatency.time()) {
+			return themeCache.getCSSDataSince(version);
+		}
+	}
+
+	/**
+	 * Retrieves the CSS data that changed since the given version, encoded in the compact binary form.
+	 * 
+	 * @param version The version of the CSS data the designer has, or 0 if it has none.
+	 * @return The encoded changes since that version.
+	 */
+	@Override
+	public byte[] getCompactCSSDataSince(long version) {
+		logger.debug("getCompactCSSDataSince called with version {}", version);
+		try (Timer.Context ignored = cssDataLatency.time()) {
+			return themeCache.getCompactCSSDataSince(version);
+		}
+	}
+
+	/**
+	 * Retrieves a summary of every theme without its variables, along with the theme the project's sessions start
+	 * with.
+	 * 
+	 * @param projectName The name of the project the designer has open.
+	 * @return A JsonObject mapping theme names to their file count, variable count and version.
+	 */
+	@Override
+	public JsonObject getThemeIndex(String projectName) {
+		logger.debug("getThemeIndex called for {}", projectName);
+		JsonObject themeIndex = themeCache.getThemeIndex();
+		if (themeIndex.get("success").getAsBoolean()) {
+			themeIndex.addProperty("defaultTheme", findDefaultTheme(projectName));
+		}
+		return themeIndex;
+	}
+
+	/**
+	 * Retrieves the variables of a single theme.
+	 * 
+	 * @param themeName The name of the theme.
+	 * @return A JsonObject containing the theme's raw and resolved variables.
+	 */
+	@Override
+	public JsonObject getTheme(String themeName) {
+		logger.debug("getTheme called for {}", themeName);
+		return themeCache.getTheme(themeName);
+	}
+
+	/**
+	 * Retrieves every reference to a CSS variable from the project index.
+	 * 
+	 * @param variableName The name of the variable.
+	 * @return A JsonObject listing the views and style classes that use the variable.
+	 */
+	@Override
+	public JsonObject getVariableUsages(String variableName) {
+		logger.debug("getVariableUsages called for {}", variableName);
+		return usageIndex.getUsages(variableName);
+	}
+
+	/**
+	 * Compares the variables of two themes on the gateway.
+	 * 
+	 * @param baseTheme The name of the base theme.
+	 * @param compareTheme The name of the theme compared against the base.
+	 * @return A JsonObject containing the differences between the two themes.
+	 */
+	@Override
+	public JsonObject compareThemes(String baseTheme, String compareTheme) {
+		logger.debug("compareThemes called for {} and {}", baseTheme, compareTheme);
+		return themeCache.compareThemes(baseTheme, compareTheme);
+	}
+
+	/**
+	 * Finds the variables whose colors look closest to the given color.
+	 * 
+	 * @param color The color to look for.
+	 * @param count The maximum number of variables to return.
+	 * @return A JsonObject containing the closest variables, nearest first.
+	 */
+	@Override
+	public JsonObject findNearestColors(String color, int count) {
+		logger.debug("findNearestColors called for {} ({} matches)", color, count);
+		return themeCache.findNearestColors(color, count);
+	}
+
+	/**
+	 * Reads the theme a project's Perspective sessions start with from its session properties, which projects
+	 * inherit from their parents like any other resource.
+	 * 
+	 * @param projectName The name of the project.
+	 * @return The configured session theme, or Perspective's own default if the project does not set one.
+	 */
+	private String findDefaultTheme(String projectName) {
+		Optional<RuntimeProject> project = projectName == null ? Optional.empty() : context.getProjectManager().getProject(projectName);
+		if (!project.isPresent()) {
+			return PERSPECTIVE_DEFAULT_THEME;
+		}
+		try {
+			for (ProjectResource resource : project.get().getResourcesOfType(SESSION_PROPS_TYPE)) {
+				byte[] data = resource.getData("props.json");
+				if (data == null) {
+					continue;
+				}
+				JsonObject sessionProps = JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).getAsJsonObject();
+				JsonObject props = sessionProps.has("props") ? sessionProps.getAsJsonObject("props") : null;
+				if (props != null && props.has("theme") && props.get("theme").isJsonPrimitive()) {
+					return props.get("theme").getAsString();
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.debug("Unable to read the session theme of project {}", projectName, e);
+		}
+		return PERSPECTIVE_DEFAULT_THEME;
 	}
-}
\ No newline at end of file
+}
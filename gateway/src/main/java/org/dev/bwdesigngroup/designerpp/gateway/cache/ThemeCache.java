@@ -0,0 +1,647 @@
+package org.dev.bwdesigngroup.designerpp.gateway.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.common.ThemeDataCodec;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+import org.dev.bwdesigngroup.designerpp.common.utils.ParseColor;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.CSSFileReader;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ColorIndex;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeDiff;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeEntry;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeFileIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.common.execution.ExecutionManager;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeCache holds the parsed theme tree in memory so that repeated requests for CSS data do not touch the disk.
+ * Each top-level entry of the themes directory (a root-level CSS file or a theme directory) is cached separately,
+ * and a {@link ThemeDirectoryWatcher} invalidates only the entries whose files changed.
+ * <p>
+ * One cache is shared by every designer session. Requests that arrive while a rebuild is running wait for that
+ * rebuild and share its result instead of starting their own.
+ * <p>
+ * The cached tree is shared between sessions and with the {@link ThemeVersionTracker}, so it never leaves this class
+ * as it is: public methods return deep copies, or encode it as {@link #getCompactCSSDataSince(long)} does.
+ * 
+ * @author Aaron Rai
+ */
+public class ThemeCache {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeCache");
+	private static final int MAX_CACHED_DIFFS = 32;
+	private static final long WARM_UP_STOP_TIMEOUT_MILLIS = 5000;
+
+	private final Path themesPath;
+	private final ThemeMetrics metrics;
+	private final ThemeFileIndex fileIndex;
+	private final CSSFileReader cssFileReader;
+	private final Map<String, ThemeEntry> entries = new ConcurrentHashMap<>();
+	private final Set<String> staleEntries = ConcurrentHashMap.newKeySet();
+	private final AtomicLong generation = new AtomicLong();
+	private final ThemeDirectoryWatcher watcher;
+	private final ThemeCacheWarmer warmer = new ThemeCacheWarmer(this);
+	private final ThemeVersionTracker versionTracker = new ThemeVersionTracker(System.currentTimeMillis());
+	private final AtomicReference<CompletableFuture<JsonObject>> inFlight = new AtomicReference<>();
+
+	private volatile boolean fullRescan = true;
+	private volatile JsonObject snapshot;
+	private volatile EncodedPayload encodedFullPayload;
+	private volatile IndexedColors indexedColors;
+	private JsonObject resolved = new JsonObject();
+	private Map<String, ThemeEntry> themeEntries = new HashMap<>();
+	private final Map<String, JsonObject> diffs = new LinkedHashMap<String, JsonObject>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JsonObject> eldest) {
+			return size() > MAX_CACHED_DIFFS;
+		}
+	};
+
+	/**
+	 * Constructor for the ThemeCache.
+	 * 
+	 * @param themesPath The path to the Perspective themes directory.
+	 * @param dataPath The module's gateway data folder, where the parsed file index is persisted.
+	 */
+	public ThemeCache(Path themesPath, Path dataPath) {
+		this(themesPath, dataPath, new ThemeMetrics());
+	}
+
+	/**
+	 * Constructor for the ThemeCache.
+	 * 
+	 * @param themesPath The path to the Perspective themes directory.
+	 * @param dataPath The module's gateway data folder, where the parsed file index is persisted.
+	 * @param metrics The metrics that record scans and cache hits.
+	 */
+	public ThemeCache(Path themesPath, Path dataPath, ThemeMetrics metrics) {
+		this.themesPath = themesPath;
+		this.metrics = metrics;
+		this.fileIndex = new ThemeFileIndex(dataPath.resolve(ThemeFileIndex.FILE_NAME), metrics);
+		this.cssFileReader = new CSSFileReader(fileIndex);
+		this.watcher = new ThemeDirectoryWatcher(themesPath, this);
+	}
+
+	/**
+	 * Loads the persisted file index and starts watching the themes directory for changes.
+	 */
+	public void start() {
+		fileIndex.load();
+		watcher.start();
+	}
+
+	/**
+	 * Reads the themes in the background, so the first request after startup finds them cached. Returns immediately;
+	 * the warm-up is cancelled by {@link #stop()} if it is still running.
+	 * 
+	 * @param executionManager The gateway's execution manager, which runs the warm-up.
+	 */
+	public void warmUp(ExecutionManager executionManager) {
+		warmer.start(executionManager);
+	}
+
+	/**
+	 * Cancels any warm-up still running, stops watching the themes directory, shuts down the parser pool, persists the
+	 * file index and drops all cached data.
+	 */
+	public void stop() {
+		warmer.cancel(WARM_UP_STOP_TIMEOUT_MILLIS);
+		watcher.stop();
+		cssFileReader.close();
+		fileIndex.save();
+		entries.clear();
+		snapshot = null;
+	}
+
+	/**
+	 * Returns the CSS data for all themes, re-reading only the theme entries that were invalidated since the last call.
+	 * 
+	 * @return A copy of the CSS variables organized by theme, which the caller may change freely.
+	 */
+	public JsonObject getCSSData() {
+		return currentSnapshot().deepCopy();
+	}
+
+	/**
+	 * @return The version of the current CSS data, or -1 if the themes could not be read. Cheaper than
+	 * {@link #getCSSData()} for callers that only need to know whether anything changed.
+	 */
+	public long getVersion() {
+		JsonObject current = currentSnapshot();
+		return current.get("success").getAsBoolean() ? current.get("version").getAsLong() : -1;
+	}
+
+	/**
+	 * Returns the shared CSS data tree, rebuilding the invalidated theme entries first. The tree must not be changed
+	 * or handed out of this package.
+	 * 
+	 * @return The current snapshot, or the error response if the themes could not be read.
+	 */
+	JsonObject currentSnapshot() {
+		JsonObject current = snapshot;
+		if (current != null) {
+			metrics.cacheHit();
+			return current;
+		}
+		metrics.cacheMiss();
+
+		while (true) {
+			CompletableFuture<JsonObject> flight = inFlight.get();
+			if (flight != null) {
+				logger.debug("Waiting for the theme rebuild already in progress");
+				return join(flight);
+			}
+
+			CompletableFuture<JsonObject> created = new CompletableFuture<>();
+			if (inFlight.compareAndSet(null, created)) {
+				try {
+					created.complete(rebuild());
+				} catch (RuntimeException | Error e) {
+					created.completeExceptionally(e);
+				} finally {
+					inFlight.compareAndSet(created, null);
+				}
+				return join(created);
+			}
+		}
+	}
+
+	/**
+	 * @return The metrics recorded by this cache.
+	 */
+	public ThemeMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns only what changed since the given version of the CSS data. The resolved variables of every theme that
+	 * changed are included in full, since a change in one file can change how any variable of the theme resolves.
+	 * 
+	 * @param version The version the caller already has, or 0 if it has nothing.
+	 * @return An "unchanged" marker if the version is current, otherwise the themes and members that were added,
+	 * changed or removed since that version. A full payload is returned if the version is unknown, e.g. because it
+	 * was handed out before a gateway restart.
+	 * @see ThemeVersionTracker#since(long)
+	 */
+	public JsonObject getCSSDataSince(long version) {
+		return changesSince(version).deepCopy();
+	}
+
+	/**
+	 * Builds the response of {@link #getCSSDataSince(long)} from the shared tree, without copying it.
+	 */
+	private JsonObject changesSince(long version) {
+		JsonObject current = currentSnapshot();
+		if (!current.get("success").getAsBoolean()) {
+			return current;
+		}
+		synchronized (this) {
+			JsonObject response = versionTracker.since(version);
+			if (response.has("themes")) {
+				JsonObject changedResolved = new JsonObject();
+				for (String themeName : response.getAsJsonObject("themes").keySet()) {
+					changedResolved.add(themeName, resolved.get(themeName));
+				}
+				response.add("resolved", changedResolved);
+			}
+			return response;
+		}
+	}
+
+	/**
+	 * Returns a summary of every theme without its variables, so the viewer can list themes before loading them.
+	 * 
+	 * @return A JsonObject whose "themes" maps each theme name to its file count, variable count and the version in
+	 * which it last changed.
+	 */
+	public JsonObject getThemeIndex() {
+		JsonObject current = currentSnapshot();
+		if (!current.get("success").getAsBoolean()) {
+			return current;
+		}
+
+		synchronized (this) {
+			JsonObject index = new JsonObject();
+			for (Map.Entry<String, JsonElement> themeEntry : versionTracker.getThemes().entrySet()) {
+				String themeName = themeEntry.getKey();
+				JsonObject theme = themeEntry.getValue().getAsJsonObject();
+				JsonObject resolvedTheme = resolved.getAsJsonObject(themeName);
+
+				int fileCount = 0;
+				for (Map.Entry<String, JsonElement> member : theme.entrySet()) {
+					if (member.getValue().isJsonObject()) {
+						fileCount++;
+					}
+				}
+
+				JsonObject summary = new JsonObject();
+				summary.addProperty("files", Math.max(fileCount, 1));
+				summary.addProperty("variables", resolvedTheme == null ? 0 : resolvedTheme.size());
+				summary.addProperty("version", versionTracker.getThemeVersion(themeName));
+				index.add(themeName, summary);
+			}
+
+			JsonObject result = new JsonObject();
+			result.addProperty("success", true);
+			result.addProperty("version", versionTracker.getVersion());
+			result.add("themes", index);
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the variables of a single theme.
+	 * 
+	 * @param themeName The name of the theme.
+	 * @return A JsonObject with the theme's "theme" data and "resolved" variables in the same shape as a single entry
+	 * of {@link #getCSSData()}, and the "themeVersion" in which it last changed.
+	 */
+	public JsonObject getTheme(String themeName) {
+		JsonObject current = currentSnapshot();
+		if (!current.get("success").getAsBoolean()) {
+			return current;
+		}
+
+		synchronized (this) {
+			JsonObject result = new JsonObject();
+			JsonObject theme = versionTracker.getThemes().getAsJsonObject(themeName);
+			if (theme == null) {
+				result.addProperty("success", false);
+				result.addProperty("error", "Theme not found: " + themeName);
+				return result;
+			}
+
+			result.addProperty("success", true);
+			result.addProperty("version", versionTracker.getVersion());
+			result.addProperty("themeVersion", versionTracker.getThemeVersion(themeName));
+			result.add("theme", theme.deepCopy());
+			JsonElement resolvedTheme = resolved.get(themeName);
+			result.add("resolved", resolvedTheme == null ? null : resolvedTheme.deepCopy());
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the entry behind every theme, for callers that read variables directly from the entries instead of the
+	 * assembled JSON tree, like {@link org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeExporter}.
+	 * 
+	 * @return The theme entries of the current snapshot, keyed and ordered by theme name, together with the version
+	 * they belong to. The entries are empty if the themes could not be read.
+	 */
+	public ThemeEntries getThemeEntries() {
+		boolean success = currentSnapshot().get("success").getAsBoolean();
+		synchronized (this) {
+			return new ThemeEntries(versionTracker.getVersion(), success
+				? Collections.unmodifiableSortedMap(new TreeMap<>(themeEntries))
+				: Collections.emptySortedMap());
+		}
+	}
+
+	/**
+	 * Compares the variables of two themes. Since a theme's version only changes when its files do, results are
+	 * cached per pair of theme versions and repeated comparisons cost nothing.
+	 * 
+	 * @param baseTheme The name of the base theme.
+	 * @param compareTheme The name of the theme compared against the base.
+	 * @return A JsonObject with the two theme names and versions and the result of {@link ThemeDiff#diff}.
+	 */
+	public JsonObject compareThemes(String baseTheme, String compareTheme) {
+		JsonObject current = currentSnapshot();
+		if (!current.get("success").getAsBoolean()) {
+			return current;
+		}
+
+		ThemeEntry baseEntry;
+		ThemeEntry compareEntry;
+		long baseVersion;
+		long compareVersion;
+		synchronized (this) {
+			baseEntry = themeEntries.get(baseTheme);
+			compareEntry = themeEntries.get(compareTheme);
+			if (baseEntry == null || compareEntry == null) {
+				JsonObject result = new JsonObject();
+				result.addProperty("success", false);
+				result.addProperty("error", "Theme not found: " + (baseEntry == null ? baseTheme : compareTheme));
+				return result;
+			}
+			baseVersion = versionTracker.getThemeVersion(baseTheme);
+			compareVersion = versionTracker.getThemeVersion(compareTheme);
+
+			JsonObject cached = diffs.get(diffKey(baseTheme, baseVersion, compareTheme, compareVersion));
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		JsonObject result = ThemeDiff.diff(baseEntry.getSortedVariables(), compareEntry.getSortedVariables());
+		result.addProperty("success", true);
+		result.addProperty("base", baseTheme);
+		result.addProperty("baseVersion", baseVersion);
+		result.addProperty("compare", compareTheme);
+		result.addProperty("compareVersion", compareVersion);
+		synchronized (this) {
+			diffs.put(diffKey(baseTheme, baseVersion, compareTheme, compareVersion), result);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the variables, across every theme, whose colors look closest to the given color. The color index is built
+	 * on the first lookup after the theme data changes and shared by every lookup until it changes again.
+	 * 
+	 * @param color The color to look for, in any format understood by {@link ParseColor}.
+	 * @param count The maximum number of variables to return.
+	 * @return A JsonObject with the parsed "query" color and the closest variables as "matches", nearest first. See
+	 * {@link ColorIndex#nearest(int, int)}.
+	 */
+	public JsonObject findNearestColors(String color, int count) {
+		JsonObject current = currentSnapshot();
+		if (!current.get("success").getAsBoolean()) {
+			return current;
+		}
+
+		JsonObject result = new JsonObject();
+		String value = color == null ? "" : color.trim();
+		long parsed = ParseColor.parseArgb(value);
+		if (parsed == ParseColor.NOT_A_COLOR) {
+			result.addProperty("success", false);
+			result.addProperty("error", "Not a color: " + value);
+			return result;
+		}
+		int argb = (int) parsed;
+
+		ColorIndex index = getColorIndex();
+		JsonObject query = new JsonObject();
+		query.addProperty("value", value);
+		query.addProperty("argb", argb);
+		result.addProperty("success", true);
+		result.addProperty("version", current.get("version").getAsLong());
+		result.add("query", query);
+		result.add("matches", index.nearest(argb, count));
+		return result;
+	}
+
+	private ColorIndex getColorIndex() {
+		Map<String, ThemeEntry> themes;
+		long version;
+		synchronized (this) {
+			version = versionTracker.getVersion();
+			IndexedColors indexed = indexedColors;
+			if (indexed != null && indexed.version == version) {
+				return indexed.index;
+			}
+			themes = new HashMap<>(themeEntries);
+		}
+
+		long start = System.nanoTime();
+		ColorIndex index = new ColorIndex(themes);
+		logger.debug("Indexed {} colors for version {} in {} ms", index.size(), version, (System.nanoTime() - start) / 1_000_000);
+		indexedColors = new IndexedColors(version, index);
+		return index;
+	}
+
+	private static String diffKey(String baseTheme, long baseVersion, String compareTheme, long compareVersion) {
+		return baseTheme + '\0' + baseVersion + '\0' + compareTheme + '\0' + compareVersion;
+	}
+
+	/**
+	 * Returns {@link #getCSSDataSince(long)} encoded with {@link ThemeDataCodec}. Full payloads are encoded once per
+	 * version and shared between callers, since every designer opening the viewer for the first time asks for one.
+	 * 
+	 * @param version The version the caller already has, or 0 if it has nothing.
+	 * @return The encoded response.
+	 */
+	public byte[] getCompactCSSDataSince(long version) {
+		JsonObject response = changesSince(version);
+		if (!response.has("full") || !response.get("full").getAsBoolean()) {
+			return ThemeDataCodec.encode(response);
+		}
+
+		long responseVersion = response.get("version").getAsLong();
+		EncodedPayload encoded = encodedFullPayload;
+		if (encoded == null || encoded.version != responseVersion) {
+			encoded = new EncodedPayload(responseVersion, ThemeDataCodec.encode(response));
+			encodedFullPayload = encoded;
+		}
+		return encoded.bytes;
+	}
+
+	private static JsonObject join(CompletableFuture<JsonObject> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Marks a single theme entry as stale. The entry is re-read on the next request.
+	 * 
+	 * @param entryName The file name of the theme entry directly under the themes directory.
+	 */
+	void invalidate(String entryName) {
+		logger.debug("Invalidating theme entry: {}", entryName);
+		staleEntries.add(entryName);
+		generation.incrementAndGet();
+		snapshot = null;
+	}
+
+	/**
+	 * Marks every theme entry as stale, forcing a full rescan on the next request.
+	 */
+	void invalidateAll() {
+		logger.debug("Invalidating all theme entries");
+		fullRescan = true;
+		generation.incrementAndGet();
+		snapshot = null;
+	}
+
+	/**
+	 * Re-reads the stale theme entries and assembles a new snapshot. The snapshot is only kept if nothing was
+	 * invalidated while it was being built, and only while the watcher is able to tell us about changes.
+	 * 
+	 * @return The assembled CSS data.
+	 */
+	private synchronized JsonObject rebuild() {
+		JsonObject current = snapshot;
+		if (current != null) {
+			return current;
+		}
+
+		long startGeneration = generation.get();
+		JsonObject result = new JsonObject();
+
+		if (!Files.isDirectory(themesPath)) {
+			logger.warn("Themes directory does not exist: {}", themesPath);
+			result.addProperty("success", false);
+			result.addProperty("error", "Themes directory not found");
+			return result;
+		}
+
+		long scanStart = System.nanoTime();
+		try {
+			if (fullRescan) {
+				fullRescan = false;
+				staleEntries.clear();
+				SortedMap<String, ThemeEntry> loaded = cssFileReader.readThemeEntries(themesPath, null);
+				entries.clear();
+				entries.putAll(loaded);
+			} else if (!staleEntries.isEmpty()) {
+				List<String> changed = new ArrayList<>(staleEntries);
+				staleEntries.removeAll(changed);
+				Set<String> stale = new TreeSet<>(changed);
+				// Entries importing files from a changed entry have to be re-read as well
+				for (ThemeEntry entry : entries.values()) {
+					for (String dependency : entry.getDependencies()) {
+						if (changed.contains(dependency)) {
+							stale.add(entry.getEntryName());
+							break;
+						}
+					}
+				}
+				SortedMap<String, ThemeEntry> loaded = cssFileReader.readThemeEntries(themesPath, stale);
+				for (String entryName : stale) {
+					ThemeEntry entry = loaded.get(entryName);
+					if (entry != null) {
+						entries.put(entryName, entry);
+					} else {
+						entries.remove(entryName);
+					}
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Error reading CSS files from directory: {}", themesPath, e);
+			fullRescan = true;
+			result.addProperty("success", false);
+			result.addProperty("error", e.getMessage());
+			return result;
+		}
+		metrics.scanned(System.nanoTime() - scanStart);
+
+		fileIndex.save();
+		assemble(result);
+		if (generation.get() == startGeneration && watcher.isWatching()) {
+			snapshot = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Assembles the cached entries into the CSS data shape returned to the designer. Root-level files are added
+	 * before theme directories so that a directory takes precedence over a file with the same theme name, unless the
+	 * file imports from that directory, in which case the file already holds everything the directory does. The
+	 * assembled tree is recorded with the version tracker, which bumps the version if anything changed, and the
+	 * resolved variables of each theme are added alongside it under "resolved".
+	 * 
+	 * @param result The JsonObject to populate.
+	 */
+	private void assemble(JsonObject result) {
+		Map<String, ThemeEntry> sorted = new TreeMap<>(entries);
+		Map<String, ThemeEntry> entriesByTheme = new HashMap<>();
+		JsonObject themes = new JsonObject();
+		JsonObject resolvedThemes = new JsonObject();
+		Set<Path> files = new HashSet<>();
+		int totalVariables = 0;
+
+		for (ThemeEntry entry : sorted.values()) {
+			if (!entry.isDirectory() && entry.getVariables().size() > 0) {
+				themes.add(entry.getThemeName(), entry.getVariables());
+				resolvedThemes.add(entry.getThemeName(), entry.getResolved());
+				entriesByTheme.put(entry.getThemeName(), entry);
+			}
+		}
+		for (ThemeEntry entry : sorted.values()) {
+			ThemeEntry file = entriesByTheme.get(entry.getThemeName());
+			if (file != null && file.getDependencies().contains(entry.getEntryName())) {
+				continue;
+			}
+			if (entry.isDirectory() && entry.getVariables().size() > 0) {
+				themes.add(entry.getThemeName(), entry.getVariables());
+				resolvedThemes.add(entry.getThemeName(), entry.getResolved());
+				entriesByTheme.put(entry.getThemeName(), entry);
+			}
+		}
+		// A file imported by several entries is read once, so it is only counted once
+		for (ThemeEntry entry : sorted.values()) {
+			files.addAll(entry.getFiles());
+		}
+		for (Map.Entry<String, JsonElement> themeEntry : resolvedThemes.entrySet()) {
+			totalVariables += themeEntry.getValue().getAsJsonObject().size();
+		}
+		metrics.setCachedVariables(totalVariables);
+
+		resolved = resolvedThemes;
+		themeEntries = entriesByTheme;
+		result.addProperty("success", true);
+		result.addProperty("version", versionTracker.update(themes));
+		result.add("themes", themes);
+		result.add("resolved", resolvedThemes);
+		result.addProperty("filesProcessed", files.size());
+		logger.info("Successfully processed {} CSS files across all themes", files.size());
+	}
+
+	/**
+	 * The theme entries of one snapshot and the version of the CSS data they were read for. Both are taken under the
+	 * same lock, so a rebuild between reading the entries and reading the version cannot mismatch them.
+	 */
+	public static class ThemeEntries {
+		public final long version;
+		public final SortedMap<String, ThemeEntry> entries;
+
+		ThemeEntries(long version, SortedMap<String, ThemeEntry> entries) {
+			this.version = version;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * A color index and the version it was built for.
+	 */
+	private static class IndexedColors {
+		final long version;
+		final ColorIndex index;
+
+		IndexedColors(long version, ColorIndex index) {
+			this.version = version;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * An encoded full payload and the version it was encoded for.
+	 */
+	private static class EncodedPayload {
+		final long version;
+		final byte[] bytes;
+
+		EncodedPayload(long version, byte[] bytes) {
+			this.version = version;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package org.dev.bwdesigngroup.designerpp.gateway.cache;
+
+import java.util.concurrent.Future;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.common.execution.ExecutionManager;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeCacheWarmer scans the themes directory once on the gateway's shared executor so that the first designer to
+ * open the CSS Variable Viewer after a gateway restart is served from a warm cache. A request that arrives while the
+ * scan is running waits for it instead of starting its own.
+ *
+ * @author Aaron Rai
+ */
+class ThemeCacheWarmer implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeCacheWarmer");
+
+	private final ThemeCache cache;
+	private Future<?> future;
+	private boolean running;
+	private boolean cancelled;
+
+	ThemeCacheWarmer(ThemeCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Submits the warm-up scan. Returns immediately.
+	 *
+	 * @param executionManager The gateway's execution manager, which runs the scan.
+	 */
+	synchronized void start(ExecutionManager executionManager) {
+		if (future != null || cancelled) {
+			return;
+		}
+		future = executionManager.executeOnce(this);
+	}
+
+	/**
+	 * Cancels the warm-up scan, interrupting it if it is running, and waits briefly for it to stop so the cache can be
+	 * torn down safely afterwards.
+	 *
+	 * @param timeoutMillis The longest time to wait for the scan to stop.
+	 */
+	synchronized void cancel(long timeoutMillis) {
+		cancelled = true;
+		if (future == null) {
+			return;
+		}
+		future.cancel(true);
+		future = null;
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		try {
+			for (long remaining = timeoutMillis; running && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+				wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (running) {
+			logger.warn("Theme cache warm-up did not stop within {} ms", timeoutMillis);
+		} else {
+			logger.debug("Theme cache warm-up cancelled");
+		}
+	}
+
+	@Override
+	public void run() {
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			running = true;
+		}
+		long start = System.nanoTime();
+		try {
+			JsonObject data = cache.currentSnapshot();
+			if (cancelled) {
+				return;
+			}
+			if (!data.get("success").getAsBoolean()) {
+				logger.info("Theme cache warm-up could not read the themes: {}", data.has("error") ? data.get("error").getAsString() : "unknown error");
+				return;
+			}
+			// Encode the full payload as well, it is what a designer asks for when it has no local copy yet
+			cache.getCompactCSSDataSince(0);
+			logger.info("Theme cache warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+		} catch (RuntimeException e) {
+			if (cancelled) {
+				logger.debug("Theme cache warm-up stopped by shutdown", e);
+			} else {
+				logger.warn("Theme cache warm-up failed, themes will be read on first request", e);
+			}
+		} finally {
+			synchronized (this) {
+				running = false;
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package org.dev.bwdesigngroup.designerpp.gateway.cache;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ThemeDirectoryWatcher watches the themes directory and all of its subdirectories with a {@link WatchService}
+ * and tells the {@link ThemeCache} which top-level theme entries changed.
+ * 
+ * @author Aaron Rai
+ */
+class ThemeDirectoryWatcher implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeWatcher");
+
+	private final Path themesPath;
+	private final ThemeCache cache;
+	private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+	private WatchService watchService;
+	private Thread thread;
+	private volatile boolean watching;
+
+	ThemeDirectoryWatcher(Path themesPath, ThemeCache cache) {
+		this.themesPath = themesPath;
+		this.cache = cache;
+	}
+
+	/**
+	 * Registers the themes directory tree and starts the watcher thread. If the directory cannot be watched the
+	 * cache falls back to reading the disk on every request.
+	 */
+	void start() {
+		if (!Files.isDirectory(themesPath)) {
+			logger.warn("Themes directory does not exist, changes will not be watched: {}", themesPath);
+			return;
+		}
+
+		try {
+			watchService = themesPath.getFileSystem().newWatchService();
+			registerTree(themesPath);
+		} catch (IOException e) {
+			logger.error("Unable to watch themes directory: {}", themesPath, e);
+			closeWatchService();
+			return;
+		}
+
+		watching = true;
+		thread = new Thread(this, DesignerPlusPlusConstants.MODULE_ID + "-ThemeWatcher");
+		thread.setDaemon(true);
+		thread.start();
+		logger.debug("Watching {} directories under {}", watchedDirectories.size(), themesPath);
+	}
+
+	/**
+	 * Stops the watcher thread and releases the watch service.
+	 */
+	void stop() {
+		watching = false;
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+		closeWatchService();
+	}
+
+	/**
+	 * @return True while the watcher is running and able to report changes.
+	 */
+	boolean isWatching() {
+		return watching;
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (watching) {
+				WatchKey key = watchService.take();
+				Path directory = watchedDirectories.get(key);
+
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW || directory == null) {
+						cache.invalidateAll();
+						continue;
+					}
+
+					Path changed = directory.resolve((Path) event.context());
+					if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+						registerTree(changed);
+					}
+					cache.invalidate(themesPath.relativize(changed).getName(0).toString());
+				}
+
+				if (!key.reset()) {
+					watchedDirectories.remove(key);
+					if (watchedDirectories.isEmpty()) {
+						logger.warn("Themes directory is no longer accessible, stopping watcher: {}", themesPath);
+						break;
+					}
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			logger.debug("Theme watcher stopped");
+		} catch (IOException e) {
+			logger.error("Error while watching themes directory: {}", themesPath, e);
+		} finally {
+			watching = false;
+			cache.invalidateAll();
+		}
+	}
+
+	/**
+	 * Registers a directory and all of its subdirectories, since a WatchService only reports direct children.
+	 * 
+	 * @param root The directory to register.
+	 * @throws IOException If an I/O error occurs while walking or registering the directories.
+	 */
+	private void registerTree(Path root) throws IOException {
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+				WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+				watchedDirectories.put(key, directory);
+			}
+		}
+	}
+
+	private void closeWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				logger.debug("Error closing theme watch service", e);
+			}
+			watchService = null;
+		}
+		watchedDirectories.clear();
+	}
+}
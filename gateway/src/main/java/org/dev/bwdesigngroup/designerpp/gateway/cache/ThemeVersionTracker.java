@@ -0,0 +1,201 @@
+package org.dev.bwdesigngroup.designerpp.gateway.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeVersionTracker assigns version numbers to the assembled theme tree so that clients can ask for only what
+ * changed since the version they already have. Every member of a theme (a file of a theme directory, or a variable
+ * of a root-level theme file) is stamped with the version in which it last changed, and removed themes and members
+ * leave a tombstone stamped with the version in which they disappeared.
+ * <p>
+ * A theme that is removed and later added again starts over with no member tombstones, so a client whose version
+ * predates the new theme is told to replace its copy of the theme rather than merge the delta into it.
+ * <p>
+ * Versions start at the time the tracker was created, so a version handed out before a gateway restart is always
+ * older than the new base version and the client receives a full payload instead of a delta. Not thread-safe; the
+ * {@link ThemeCache} guards it.
+ *
+ * @author Aaron Rai
+ */
+class ThemeVersionTracker {
+	private final long baseVersion;
+	private final Map<String, ThemeVersions> themeVersions = new HashMap<>();
+	private final Map<String, Long> removedThemes = new HashMap<>();
+	private JsonObject themes = new JsonObject();
+	private long version;
+
+	ThemeVersionTracker(long baseVersion) {
+		this.baseVersion = baseVersion;
+		this.version = baseVersion;
+	}
+
+	/**
+	 * @return The version of the most recently recorded theme tree.
+	 */
+	long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The most recently recorded theme tree.
+	 */
+	JsonObject getThemes() {
+		return themes;
+	}
+
+	/**
+	 * @param themeName The name of a theme.
+	 * @return The version in which the theme last changed, or 0 if the theme does not exist.
+	 */
+	long getThemeVersion(String themeName) {
+		ThemeVersions versions = themeVersions.get(themeName);
+		return versions == null ? 0 : versions.version;
+	}
+
+	/**
+	 * Records a newly assembled theme tree, bumping the version if anything differs from the previous tree.
+	 *
+	 * @param newThemes The assembled themes object, keyed by theme name.
+	 * @return The version of the recorded tree.
+	 */
+	long update(JsonObject newThemes) {
+		if (newThemes.equals(themes)) {
+			themes = newThemes;
+			return version;
+		}
+
+		long newVersion = version + 1;
+		for (Map.Entry<String, JsonElement> themeEntry : newThemes.entrySet()) {
+			String themeName = themeEntry.getKey();
+			JsonObject newTheme = themeEntry.getValue().getAsJsonObject();
+			JsonObject oldTheme = themes.has(themeName) ? themes.getAsJsonObject(themeName) : null;
+			ThemeVersions versions = themeVersions.computeIfAbsent(themeName, name -> new ThemeVersions(newVersion));
+			removedThemes.remove(themeName);
+
+			if (newTheme.equals(oldTheme)) {
+				continue;
+			}
+			for (Map.Entry<String, JsonElement> member : newTheme.entrySet()) {
+				if (oldTheme == null || !member.getValue().equals(oldTheme.get(member.getKey()))) {
+					versions.members.put(member.getKey(), newVersion);
+					versions.removedMembers.remove(member.getKey());
+				}
+			}
+			if (oldTheme != null) {
+				for (String memberName : oldTheme.keySet()) {
+					if (!newTheme.has(memberName)) {
+						versions.members.remove(memberName);
+						versions.removedMembers.put(memberName, newVersion);
+					}
+				}
+			}
+			versions.version = newVersion;
+		}
+
+		Iterator<Map.Entry<String, ThemeVersions>> existing = themeVersions.entrySet().iterator();
+		while (existing.hasNext()) {
+			String themeName = existing.next().getKey();
+			if (!newThemes.has(themeName)) {
+				existing.remove();
+				removedThemes.put(themeName, newVersion);
+			}
+		}
+
+		themes = newThemes;
+		version = newVersion;
+		return version;
+	}
+
+	/**
+	 * Builds the response for a client that already has the given version.
+	 *
+	 * @param since The version the client has, or 0 if it has nothing.
+	 * @return Either an "unchanged" marker, a delta of the themes and members that changed, or the full tree if the
+	 * client's version is not one this tracker handed out.
+	 */
+	JsonObject since(long since) {
+		JsonObject result = new JsonObject();
+		result.addProperty("success", true);
+		result.addProperty("version", version);
+
+		if (since == version) {
+			result.addProperty("unchanged", true);
+			return result;
+		}
+
+		result.addProperty("unchanged", false);
+		if (since < baseVersion || since > version) {
+			result.addProperty("full", true);
+			result.add("themes", themes);
+			return result;
+		}
+
+		result.addProperty("full", false);
+		JsonObject changedThemes = new JsonObject();
+		JsonObject removedFiles = new JsonObject();
+		JsonArray replacedThemes = new JsonArray();
+		for (Map.Entry<String, ThemeVersions> themeEntry : themeVersions.entrySet()) {
+			ThemeVersions versions = themeEntry.getValue();
+			if (versions.version <= since) {
+				continue;
+			}
+
+			String themeName = themeEntry.getKey();
+			JsonObject theme = themes.getAsJsonObject(themeName);
+			JsonObject changed = new JsonObject();
+			for (Map.Entry<String, Long> member : versions.members.entrySet()) {
+				if (member.getValue() > since) {
+					changed.add(member.getKey(), theme.get(member.getKey()));
+				}
+			}
+			changedThemes.add(themeName, changed);
+			if (versions.created > since) {
+				// Every member was stamped when the theme was created, so the delta holds the whole theme
+				replacedThemes.add(themeName);
+			}
+
+			JsonArray removed = new JsonArray();
+			for (Map.Entry<String, Long> member : versions.removedMembers.entrySet()) {
+				if (member.getValue() > since) {
+					removed.add(member.getKey());
+				}
+			}
+			if (removed.size() > 0) {
+				removedFiles.add(themeName, removed);
+			}
+		}
+
+		JsonArray removedThemeNames = new JsonArray();
+		for (Map.Entry<String, Long> removed : removedThemes.entrySet()) {
+			if (removed.getValue() > since) {
+				removedThemeNames.add(removed.getKey());
+			}
+		}
+
+		result.add("themes", changedThemes);
+		result.add("removedFiles", removedFiles);
+		result.add("removedThemes", removedThemeNames);
+		result.add("replacedThemes", replacedThemes);
+		return result;
+	}
+
+	/**
+	 * The version stamps of one theme and its members.
+	 */
+	private static class ThemeVersions {
+		final Map<String, Long> members = new HashMap<>();
+		final Map<String, Long> removedMembers = new HashMap<>();
+		final long created;
+		long version;
+
+		ThemeVersions(long created) {
+			this.created = created;
+		}
+	}
+}
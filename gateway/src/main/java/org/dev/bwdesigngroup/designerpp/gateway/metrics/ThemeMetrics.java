@@ -0,0 +1,141 @@
+package org.dev.bwdesigngroup.designerpp.gateway.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeMetrics records how long theme scans take, how much was parsed, how often requests are served from the cache
+ * and how long CSS data requests take, so a slow viewer can be traced to the disk, the parser or the network.
+ * <p>
+ * The metrics are plain Dropwizard metrics and work without a registry. Once {@link #register(MetricRegistry)} is
+ * called they also appear in the gateway's metrics registry under the <tt>DesignerPlusPlus.themes</tt> prefix.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeMetrics {
+	public static final String PREFIX = DesignerPlusPlusConstants.MODULE_ID + ".themes";
+
+	private final Timer scanDuration = new Timer();
+	private final Counter filesParsed = new Counter();
+	private final Counter bytesParsed = new Counter();
+	private final Counter cacheHits = new Counter();
+	private final Counter cacheMisses = new Counter();
+	private final Timer cssDataLatency = new Timer();
+	private volatile long lastScanNanos;
+	private volatile int cachedVariables;
+
+	/**
+	 * Adds every metric to a metrics registry.
+	 *
+	 * @param registry The gateway's metrics registry.
+	 */
+	public void register(MetricRegistry registry) {
+		registry.register(MetricRegistry.name(PREFIX, "scan", "duration"), scanDuration);
+		registry.register(MetricRegistry.name(PREFIX, "scan", "filesParsed"), filesParsed);
+		registry.register(MetricRegistry.name(PREFIX, "scan", "bytesParsed"), bytesParsed);
+		registry.register(MetricRegistry.name(PREFIX, "cache", "hits"), cacheHits);
+		registry.register(MetricRegistry.name(PREFIX, "cache", "misses"), cacheMisses);
+		registry.register(MetricRegistry.name(PREFIX, "cache", "variables"), (Gauge<Integer>) () -> cachedVariables);
+		registry.register(MetricRegistry.name(PREFIX, "rpc", "getCSSData"), cssDataLatency);
+	}
+
+	/**
+	 * Removes every metric added by {@link #register(MetricRegistry)}.
+	 *
+	 * @param registry The gateway's metrics registry.
+	 */
+	public void unregister(MetricRegistry registry) {
+		registry.removeMatching((name, metric) -> name.startsWith(PREFIX + "."));
+	}
+
+	/**
+	 * Records a scan of the themes directory.
+	 *
+	 * @param nanos How long the scan took, in nanoseconds.
+	 */
+	public void scanned(long nanos) {
+		lastScanNanos = nanos;
+		scanDuration.update(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records a CSS file that was actually parsed, rather than reused from the file index.
+	 *
+	 * @param bytes The size of the file.
+	 */
+	public void fileParsed(long bytes) {
+		filesParsed.inc();
+		bytesParsed.inc(bytes);
+	}
+
+	/**
+	 * Records a request for CSS data that was served from the cached snapshot.
+	 */
+	public void cacheHit() {
+		cacheHits.inc();
+	}
+
+	/**
+	 * Records a request for CSS data that required a rebuild.
+	 */
+	public void cacheMiss() {
+		cacheMisses.inc();
+	}
+
+	/**
+	 * @param count The number of variables across all cached themes.
+	 */
+	public void setCachedVariables(int count) {
+		cachedVariables = count;
+	}
+
+	/**
+	 * @return The timer measuring CSS data requests from designers.
+	 */
+	public Timer getCSSDataLatency() {
+		return cssDataLatency;
+	}
+
+	/**
+	 * @return A summary of every metric, with durations in milliseconds.
+	 */
+	public JsonObject toJson() {
+		JsonObject scan = toJson(scanDuration);
+		scan.addProperty("lastMs", toMillis(lastScanNanos));
+		scan.addProperty("filesParsed", filesParsed.getCount());
+		scan.addProperty("bytesParsed", bytesParsed.getCount());
+
+		JsonObject cache = new JsonObject();
+		cache.addProperty("hits", cacheHits.getCount());
+		cache.addProperty("misses", cacheMisses.getCount());
+		cache.addProperty("variables", cachedVariables);
+
+		JsonObject result = new JsonObject();
+		result.add("scan", scan);
+		result.add("cache", cache);
+		result.add("getCSSData", toJson(cssDataLatency));
+		return result;
+	}
+
+	private static JsonObject toJson(Timer timer) {
+		Snapshot snapshot = timer.getSnapshot();
+		JsonObject json = new JsonObject();
+		json.addProperty("count", timer.getCount());
+		json.addProperty("p50Ms", toMillis(snapshot.getMedian()));
+		json.addProperty("p95Ms", toMillis(snapshot.get95thPercentile()));
+		json.addProperty("p99Ms", toMillis(snapshot.get99thPercentile()));
+		return json;
+	}
+
+	private static double toMillis(double nanos) {
+		return Math.round(nanos / 1_000.0) / 1_000.0;
+	}
+}
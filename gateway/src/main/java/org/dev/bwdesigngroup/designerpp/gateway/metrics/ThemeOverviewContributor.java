@@ -0,0 +1,58 @@
+package org.dev.bwdesigngroup.designerpp.gateway.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.gateway.web.pages.status.overviewmeta.OverviewContributor;
+
+/**
+ * ThemeOverviewContributor shows the {@link ThemeMetrics} on the gateway's Status overview page: scan duration, files
+ * and bytes parsed, cache hits and misses, cached variables and getCSSData latency percentiles. The values are read
+ * from the metrics each time the page asks for them.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeOverviewContributor implements OverviewContributor {
+	private final ThemeMetrics metrics;
+
+	/**
+	 * Constructor for the ThemeOverviewContributor.
+	 *
+	 * @param metrics The metrics to show.
+	 */
+	public ThemeOverviewContributor(ThemeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Optional<String> getTitle() {
+		return Optional.of("Designer++ Themes");
+	}
+
+	@Override
+	public Map<String, String> getValues() {
+		JsonObject summary = metrics.toJson();
+		JsonObject scan = summary.getAsJsonObject("scan");
+		JsonObject cache = summary.getAsJsonObject("cache");
+		JsonObject cssData = summary.getAsJsonObject("getCSSData");
+
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put("Last Scan", scan.get("lastMs").getAsDouble() + " ms");
+		values.put("Scan Duration (p50 / p95 / p99)", percentiles(scan));
+		values.put("Files Parsed", String.valueOf(scan.get("filesParsed").getAsLong()));
+		values.put("Bytes Parsed", String.valueOf(scan.get("bytesParsed").getAsLong()));
+		values.put("Cache Hits", String.valueOf(cache.get("hits").getAsLong()));
+		values.put("Cache Misses", String.valueOf(cache.get("misses").getAsLong()));
+		values.put("Cached Variables", String.valueOf(cache.get("variables").getAsInt()));
+		values.put("getCSSData Requests", String.valueOf(cssData.get("count").getAsLong()));
+		values.put("getCSSData Latency (p50 / p95 / p99)", percentiles(cssData));
+		return values;
+	}
+
+	private static String percentiles(JsonObject timer) {
+		return timer.get("p50Ms").getAsDouble() + " / " + timer.get("p95Ms").getAsDouble() + " / "
+			+ timer.get("p99Ms").getAsDouble() + " ms";
+	}
+}
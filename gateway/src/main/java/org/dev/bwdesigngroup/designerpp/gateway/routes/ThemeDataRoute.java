@@ -0,0 +1,250 @@
+package org.dev.bwdesigngroup.designerpp.gateway.routes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.gateway.cache.ThemeCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.gateway.dataroutes.RequestContext;
+import com.inductiveautomation.ignition.gateway.dataroutes.RouteGroup;
+
+/**
+ * ThemeDataRoute serves the cached theme data over HTTP at <tt>/main/data/DesignerPlusPlus/themes</tt>, so build
+ * scripts and browser tools can read the variables without a designer session.
+ * <p>
+ * The response has the same shape as the getCSSData RPC. It can be narrowed with <tt>theme=</tt> (repeatable or
+ * comma-separated) and <tt>prefix=</tt>, which keeps only variables whose name starts with the prefix. The ETag is
+ * the theme data version, so a client sending it back in <tt>If-None-Match</tt> gets an empty 304 until a theme
+ * file changes. The unfiltered body is serialized and compressed once per version.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeDataRoute {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeDataRoute");
+
+	public static final String PATH = "/themes";
+
+	private final ThemeCache themeCache;
+	private volatile CachedBody cachedBody;
+
+	/**
+	 * Constructor for the ThemeDataRoute.
+	 *
+	 * @param themeCache The theme cache to serve data from.
+	 */
+	public ThemeDataRoute(ThemeCache themeCache) {
+		this.themeCache = themeCache;
+	}
+
+	/**
+	 * Mounts the route.
+	 *
+	 * @param routes The module's route group.
+	 */
+	public void mount(RouteGroup routes) {
+		routes.newRoute(PATH)
+			.handler(this::handle)
+			.type(RouteGroup.TYPE_JSON)
+			.mount();
+	}
+
+	private Object handle(RequestContext req, HttpServletResponse res) throws IOException {
+		// The query string is part of the resource identity, so the version alone identifies the representation.
+		// The tag is weak because the same representation may be sent with or without gzip.
+		long version = themeCache.getVersion();
+		if (version >= 0 && matches(req.getRequest().getHeader("If-None-Match"), version)) {
+			setCacheHeaders(res, version);
+			res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return null;
+		}
+
+		Set<String> themeNames = parseThemes(req.getRequest().getParameterValues("theme"));
+		String prefix = req.getParameter("prefix");
+		if (prefix != null && prefix.startsWith("--")) {
+			prefix = prefix.substring(2);
+		}
+		boolean everything = themeNames == null && (prefix == null || prefix.isEmpty());
+
+		CachedBody body = cachedBody;
+		JsonObject cssData = null;
+		if (version < 0 || !everything || body == null || body.version != version) {
+			// The cache hands out a copy, taken only when a body has to be serialized or filtered
+			cssData = themeCache.getCSSData();
+			if (!cssData.get("success").getAsBoolean()) {
+				logger.warn("Unable to serve theme data: {}", cssData.get("error"));
+				res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				write(req, res, cssData.toString().getBytes(StandardCharsets.UTF_8), null);
+				return null;
+			}
+			version = cssData.get("version").getAsLong();
+		}
+		setCacheHeaders(res, version);
+
+		res.setStatus(HttpServletResponse.SC_OK);
+		if (everything) {
+			if (cssData != null) {
+				byte[] json = cssData.toString().getBytes(StandardCharsets.UTF_8);
+				body = new CachedBody(version, json, gzip(json));
+				cachedBody = body;
+			}
+			write(req, res, body.json, body.gzipped);
+		} else {
+			byte[] json = filter(cssData, themeNames, prefix).toString().getBytes(StandardCharsets.UTF_8);
+			write(req, res, json, null);
+		}
+		return null;
+	}
+
+	private static void setCacheHeaders(HttpServletResponse res, long version) {
+		res.setHeader("ETag", "W/\"" + version + "\"");
+		res.setHeader("Cache-Control", "no-cache");
+		res.setHeader("Vary", "Accept-Encoding");
+	}
+
+	/**
+	 * Builds a copy of the CSS data containing only the requested themes and variables.
+	 *
+	 * @param cssData The full CSS data.
+	 * @param themeNames The themes to keep, or null to keep every theme.
+	 * @param prefix The variable name prefix to keep, without the leading dashes, or null to keep every variable.
+	 * @return The filtered CSS data.
+	 */
+	private static JsonObject filter(JsonObject cssData, Set<String> themeNames, String prefix) {
+		JsonObject themes = new JsonObject();
+		JsonObject resolved = new JsonObject();
+		JsonObject allResolved = cssData.getAsJsonObject("resolved");
+
+		for (Map.Entry<String, JsonElement> themeEntry : cssData.getAsJsonObject("themes").entrySet()) {
+			String themeName = themeEntry.getKey();
+			if (themeNames != null && !themeNames.contains(themeName)) {
+				continue;
+			}
+
+			JsonObject theme = new JsonObject();
+			for (Map.Entry<String, JsonElement> member : themeEntry.getValue().getAsJsonObject().entrySet()) {
+				if (member.getValue().isJsonObject()) {
+					JsonObject variables = filterVariables(member.getValue().getAsJsonObject(), prefix);
+					if (variables.size() > 0) {
+						theme.add(member.getKey(), variables);
+					}
+				} else if (prefix == null || member.getKey().startsWith(prefix)) {
+					theme.add(member.getKey(), member.getValue());
+				}
+			}
+			themes.add(themeName, theme);
+			resolved.add(themeName, filterVariables(allResolved.getAsJsonObject(themeName), prefix));
+		}
+
+		JsonObject result = new JsonObject();
+		result.addProperty("success", true);
+		result.add("version", cssData.get("version"));
+		result.add("themes", themes);
+		result.add("resolved", resolved);
+		return result;
+	}
+
+	private static JsonObject filterVariables(JsonObject variables, String prefix) {
+		if (prefix == null || variables == null) {
+			return variables == null ? new JsonObject() : variables;
+		}
+		JsonObject filtered = new JsonObject();
+		for (Map.Entry<String, JsonElement> variable : variables.entrySet()) {
+			if (variable.getKey().startsWith(prefix)) {
+				filtered.add(variable.getKey(), variable.getValue());
+			}
+		}
+		return filtered;
+	}
+
+	/**
+	 * @return The requested theme names, or null if no theme filter was given.
+	 */
+	private static Set<String> parseThemes(String[] values) {
+		if (values == null || values.length == 0) {
+			return null;
+		}
+		Set<String> themeNames = new HashSet<>();
+		for (String value : values) {
+			for (String themeName : value.split(",")) {
+				if (!themeName.trim().isEmpty()) {
+					themeNames.add(themeName.trim());
+				}
+			}
+		}
+		return themeNames.isEmpty() ? null : themeNames;
+	}
+
+	/**
+	 * Checks an If-None-Match header against the current version, using the weak comparison RFC 7232 requires.
+	 */
+	private static boolean matches(String ifNoneMatch, long version) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String opaqueTag = "\"" + version + "\"";
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.equals("*") || tag.equals(opaqueTag) || tag.equals("W/" + opaqueTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes a JSON body, compressed if the client accepts gzip.
+	 *
+	 * @param gzipped The body already compressed, or null to compress it here if needed.
+	 */
+	private static void write(RequestContext req, HttpServletResponse res, byte[] json, byte[] gzipped)
+		throws IOException {
+		res.setContentType("application/json");
+		res.setCharacterEncoding("UTF-8");
+
+		byte[] body = json;
+		String acceptEncoding = req.getRequest().getHeader("Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			body = gzipped != null ? gzipped : gzip(json);
+			res.setHeader("Content-Encoding", "gzip");
+		}
+		res.setContentLength(body.length);
+		try (OutputStream out = res.getOutputStream()) {
+			out.write(body);
+		}
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+			out.write(bytes);
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * The unfiltered response body and the version it was serialized for.
+	 */
+	private static class CachedBody {
+		final long version;
+		final byte[] json;
+		final byte[] gzipped;
+
+		CachedBody(long version, byte[] json, byte[] gzipped) {
+			this.version = version;
+			this.json = json;
+			this.gzipped = gzipped;
+		}
+	}
+}
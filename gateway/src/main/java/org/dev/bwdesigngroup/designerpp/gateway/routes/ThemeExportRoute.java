@@ -0,0 +1,103 @@
+package org.dev.bwdesigngroup.designerpp.gateway.routes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.gateway.cache.ThemeCache;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeEntry;
+import org.dev.bwdesigngroup.designerpp.gateway.utils.ThemeExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.gateway.dataroutes.RequestContext;
+import com.inductiveautomation.ignition.gateway.dataroutes.RouteGroup;
+
+/**
+ * ThemeExportRoute streams every theme's raw and resolved variables at <tt>/main/data/DesignerPlusPlus/export</tt>.
+ * <tt>format=</tt> selects json (the default), csv or css, and <tt>theme=</tt> (repeatable or comma-separated)
+ * limits the export to the given themes. The response is written as it is produced, gzip-compressed if the client
+ * accepts it, and offered as a file download.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeExportRoute {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeExportRoute");
+
+	public static final String PATH = "/export";
+
+	private final ThemeCache themeCache;
+
+	/**
+	 * Constructor for the ThemeExportRoute.
+	 *
+	 * @param themeCache The theme cache to export from.
+	 */
+	public ThemeExportRoute(ThemeCache themeCache) {
+		this.themeCache = themeCache;
+	}
+
+	/**
+	 * Mounts the route.
+	 *
+	 * @param routes The module's route group.
+	 */
+	public void mount(RouteGroup routes) {
+		routes.newRoute(PATH)
+			.handler(this::handle)
+			.mount();
+	}
+
+	private Object handle(RequestContext req, HttpServletResponse res) throws IOException {
+		String formatName = req.getParameter("format");
+		ThemeExporter.Format format = formatName == null ? ThemeExporter.Format.JSON : ThemeExporter.Format.fromName(formatName);
+		if (format == null) {
+			res.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+			res.setContentType("text/plain");
+			res.getOutputStream().write(("Unknown export format: " + formatName).getBytes(StandardCharsets.UTF_8));
+			return null;
+		}
+
+		ThemeCache.ThemeEntries snapshot = themeCache.getThemeEntries();
+		SortedMap<String, ThemeEntry> themes = snapshot.entries;
+		String[] themeParameters = req.getRequest().getParameterValues("theme");
+		if (themeParameters != null) {
+			Set<String> themeNames = new HashSet<>();
+			for (String value : themeParameters) {
+				for (String themeName : value.split(",")) {
+					themeNames.add(themeName.trim());
+				}
+			}
+			themes = new TreeMap<>(themes);
+			themes.keySet().retainAll(themeNames);
+		}
+
+		res.setStatus(HttpServletResponse.SC_OK);
+		res.setContentType(format.getContentType());
+		res.setCharacterEncoding("UTF-8");
+		res.setHeader("Content-Disposition", "attachment; filename=\"themes." + format.getExtension() + "\"");
+		res.setHeader("Vary", "Accept-Encoding");
+
+		OutputStream out = res.getOutputStream();
+		String acceptEncoding = req.getRequest().getHeader("Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			res.setHeader("Content-Encoding", "gzip");
+			out = new GZIPOutputStream(out, 8192);
+		}
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192)) {
+			ThemeExporter.export(format, snapshot.version, themes, writer);
+		}
+		logger.debug("Exported {} themes as {}", themes.size(), format);
+		return null;
+	}
+}
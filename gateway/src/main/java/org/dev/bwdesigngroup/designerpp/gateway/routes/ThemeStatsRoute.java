@@ -0,0 +1,46 @@
+package org.dev.bwdesigngroup.designerpp.gateway.routes;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+
+import com.inductiveautomation.ignition.gateway.dataroutes.RequestContext;
+import com.inductiveautomation.ignition.gateway.dataroutes.RouteGroup;
+
+/**
+ * ThemeStatsRoute serves a summary of the {@link ThemeMetrics} at <tt>/main/data/DesignerPlusPlus/stats</tt>: scan
+ * duration, files and bytes parsed, cache hits and misses, cached variables and getCSSData latency percentiles.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeStatsRoute {
+	public static final String PATH = "/stats";
+
+	private final ThemeMetrics metrics;
+
+	/**
+	 * Constructor for the ThemeStatsRoute.
+	 *
+	 * @param metrics The metrics to serve.
+	 */
+	public ThemeStatsRoute(ThemeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Mounts the route.
+	 *
+	 * @param routes The module's route group.
+	 */
+	public void mount(RouteGroup routes) {
+		routes.newRoute(PATH)
+			.handler(this::handle)
+			.type(RouteGroup.TYPE_JSON)
+			.mount();
+	}
+
+	private Object handle(RequestContext req, HttpServletResponse res) {
+		res.setHeader("Cache-Control", "no-store");
+		return metrics.toJson();
+	}
+}
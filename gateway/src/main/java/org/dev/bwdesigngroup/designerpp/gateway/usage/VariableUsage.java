@@ -0,0 +1,80 @@
+package org.dev.bwdesigngroup.designerpp.gateway.usage;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * A single reference to a CSS variable from a Perspective view or style class.
+ *
+ * @author Aaron Rai
+ */
+class VariableUsage {
+	static final String TYPE_VIEW = "view";
+	static final String TYPE_STYLE_CLASS = "style-class";
+
+	static final Comparator<VariableUsage> ORDER = Comparator
+		.comparing((VariableUsage usage) -> usage.project)
+		.thenComparing(usage -> usage.type)
+		.thenComparing(usage -> usage.path)
+		.thenComparing(usage -> usage.component)
+		.thenComparing(usage -> usage.property);
+
+	final String variable;
+	final String project;
+	final String type;
+	final String path;
+	final String component;
+	final String property;
+
+	/**
+	 * Constructor for the VariableUsage.
+	 *
+	 * @param variable The referenced variable name, without the leading dashes.
+	 * @param project The project containing the resource.
+	 * @param type Either {@link #TYPE_VIEW} or {@link #TYPE_STYLE_CLASS}.
+	 * @param path The folder path of the view or style class.
+	 * @param component The path of component names from the view root, or an empty string for view-level and style
+	 * class properties.
+	 * @param property The dotted path of the property holding the reference.
+	 */
+	VariableUsage(String variable, String project, String type, String path, String component, String property) {
+		this.variable = variable;
+		this.project = project;
+		this.type = type;
+		this.path = path;
+		this.component = component;
+		this.property = property;
+	}
+
+	JsonObject toJson() {
+		JsonObject json = new JsonObject();
+		json.addProperty("project", project);
+		json.addProperty("type", type);
+		json.addProperty("path", path);
+		if (!component.isEmpty()) {
+			json.addProperty("component", component);
+		}
+		json.addProperty("property", property);
+		return json;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof VariableUsage)) {
+			return false;
+		}
+		VariableUsage other = (VariableUsage) o;
+		return variable.equals(other.variable) && project.equals(other.project) && type.equals(other.type)
+			&& path.equals(other.path) && component.equals(other.component) && property.equals(other.property);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(variable, project, type, path, component, property);
+	}
+}
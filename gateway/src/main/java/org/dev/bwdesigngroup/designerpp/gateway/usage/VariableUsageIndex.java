@@ -0,0 +1,363 @@
+package org.dev.bwdesigngroup.designerpp.gateway.usage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.zip.CRC32;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.project.RuntimeProject;
+import com.inductiveautomation.ignition.common.project.resource.ProjectResource;
+import com.inductiveautomation.ignition.common.project.resource.ResourceType;
+import com.inductiveautomation.ignition.gateway.project.ProjectListener;
+import com.inductiveautomation.ignition.gateway.project.ProjectManager;
+
+/**
+ * VariableUsageIndex maps every CSS variable to the Perspective views and style classes that reference it, across
+ * every project on the gateway, so a usage query is a single map lookup.
+ * <p>
+ * The index is built in the background when the module starts, by scanning every view and style class in parallel on
+ * a bounded pool. Queries made while it is being built are answered from the projects indexed so far and flagged as
+ * "indexing". After that it follows project change events: only the changed project and the projects inheriting from
+ * it are rechecked, and within those only resources whose fingerprint changed are scanned again.
+ *
+ * @author Aaron Rai
+ */
+public class VariableUsageIndex {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".variableUsageIndex");
+	private static final int MAX_INDEXER_THREADS = 8;
+	private static final String PERSPECTIVE_MODULE_ID = "com.inductiveautomation.perspective";
+	private static final ResourceType VIEW_TYPE = new ResourceType(PERSPECTIVE_MODULE_ID, "views");
+	private static final ResourceType STYLE_CLASS_TYPE = new ResourceType(PERSPECTIVE_MODULE_ID, "style-classes");
+
+	private final ProjectManager projectManager;
+	private final ForkJoinPool indexerPool;
+	private final ExecutorService updater;
+	private final ProjectListener projectListener = new IndexUpdater();
+	private final Map<String, Map<String, IndexedResource>> projects = new ConcurrentHashMap<>();
+	private final Map<String, Set<VariableUsage>> usagesByVariable = new ConcurrentHashMap<>();
+	private volatile boolean built;
+
+	/**
+	 * Constructor for the VariableUsageIndex.
+	 *
+	 * @param projectManager The gateway's project manager.
+	 */
+	public VariableUsageIndex(ProjectManager projectManager) {
+		this.projectManager = projectManager;
+		this.indexerPool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors(), MAX_INDEXER_THREADS), pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(DesignerPlusPlusConstants.MODULE_ID + "-UsageIndexer-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+		this.updater = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, DesignerPlusPlusConstants.MODULE_ID + "-UsageIndexUpdater");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts building the index in the background and following project changes. Returns immediately. Updates are
+	 * applied one at a time on a single thread, so changes made while the index is being built are applied after it.
+	 */
+	public void start() {
+		projectManager.addProjectListener(projectListener);
+		updater.execute(this::build);
+	}
+
+	/**
+	 * Stops following project changes, shuts down the indexer pool and drops the index.
+	 */
+	public void stop() {
+		projectManager.removeProjectListener(projectListener);
+		updater.shutdownNow();
+		indexerPool.shutdownNow();
+		synchronized (this) {
+			built = false;
+			projects.clear();
+			usagesByVariable.clear();
+		}
+	}
+
+	/**
+	 * Returns every reference to a variable. Never waits for the index to be built.
+	 *
+	 * @param variableName The variable name, with or without the leading dashes.
+	 * @return A JsonObject whose "usages" lists each referencing view or style class, sorted by project and path, and
+	 * whose "indexing" flag is true while the index is still being built and the usages may be incomplete.
+	 */
+	public JsonObject getUsages(String variableName) {
+		String name = variableName.startsWith("--") ? variableName.substring(2) : variableName;
+		List<VariableUsage> usages = new ArrayList<>(usagesByVariable.getOrDefault(name, Collections.emptySet()));
+		usages.sort(VariableUsage.ORDER);
+
+		JsonArray usageArray = new JsonArray();
+		for (VariableUsage usage : usages) {
+			usageArray.add(usage.toJson());
+		}
+		JsonObject result = new JsonObject();
+		result.addProperty("success", true);
+		result.addProperty("variable", name);
+		result.addProperty("indexing", !built);
+		result.add("usages", usageArray);
+		return result;
+	}
+
+	/**
+	 * Indexes every project on the gateway, one project at a time so queries see each project as soon as it is done.
+	 */
+	private void build() {
+		long start = System.nanoTime();
+		try {
+			for (String projectName : projectManager.getProjectNames()) {
+				if (updater.isShutdown()) {
+					return;
+				}
+				Optional<RuntimeProject> project = projectManager.getProject(projectName);
+				if (project.isPresent()) {
+					update(Collections.singletonList(project.get()));
+				}
+			}
+		} catch (RuntimeException e) {
+			if (updater.isShutdown()) {
+				logger.debug("Variable usage indexing stopped by shutdown", e);
+			} else {
+				logger.warn("Variable usage indexing failed, usages will be incomplete", e);
+			}
+			return;
+		}
+		built = true;
+		logger.info("Indexed CSS variable usages across {} projects in {} ms, {} variables referenced",
+			projects.size(), (System.nanoTime() - start) / 1_000_000, usagesByVariable.size());
+	}
+
+	/**
+	 * Brings the index up to date for the given projects, scanning only resources whose content changed.
+	 *
+	 * @param projectsToCheck The projects to check.
+	 */
+	private synchronized void update(List<RuntimeProject> projectsToCheck) {
+		List<Scan> scans = new ArrayList<>();
+		Map<String, Set<String>> seenByProject = new HashMap<>();
+
+		// Fingerprint every resource and submit the changed ones, then apply the results once all have been scanned
+		for (RuntimeProject project : projectsToCheck) {
+			String projectName = project.getName();
+			Map<String, IndexedResource> indexed = projects.getOrDefault(projectName, Collections.emptyMap());
+			Set<String> seen = new HashSet<>();
+			seenByProject.put(projectName, seen);
+
+			for (ResourceType resourceType : new ResourceType[] {VIEW_TYPE, STYLE_CLASS_TYPE}) {
+				boolean view = resourceType.equals(VIEW_TYPE);
+				for (ProjectResource resource : project.getResourcesOfType(resourceType)) {
+					String type = view ? VariableUsage.TYPE_VIEW : VariableUsage.TYPE_STYLE_CLASS;
+					String path = resource.getResourcePath().getFolderPath();
+					String key = type + ":" + path;
+					byte[] data = resource.getData(view ? "view.json" : "style.json");
+					long fingerprint = fingerprint(data);
+					seen.add(key);
+
+					IndexedResource previous = indexed.get(key);
+					if (previous == null || previous.fingerprint != fingerprint) {
+						scans.add(new Scan(projectName, key, fingerprint,
+							indexerPool.submit(() -> VariableUsageScanner.scan(projectName, type, path, data))));
+					}
+				}
+			}
+		}
+
+		for (Scan scan : scans) {
+			List<VariableUsage> usages;
+			try {
+				usages = scan.task.join();
+			} catch (RuntimeException e) {
+				logger.warn("Unable to scan {} in project {} for variable usages", scan.key, scan.project, e);
+				usages = Collections.emptyList();
+			}
+			Map<String, IndexedResource> indexed = projects.computeIfAbsent(scan.project, name -> new ConcurrentHashMap<>());
+			IndexedResource previous = indexed.put(scan.key, new IndexedResource(scan.fingerprint, usages));
+			if (previous != null) {
+				removeUsages(previous.usages);
+			}
+			for (VariableUsage usage : usages) {
+				usagesByVariable.computeIfAbsent(usage.variable, name -> ConcurrentHashMap.newKeySet()).add(usage);
+			}
+		}
+
+		for (Map.Entry<String, Set<String>> seenEntry : seenByProject.entrySet()) {
+			Map<String, IndexedResource> indexed = projects.get(seenEntry.getKey());
+			if (indexed == null) {
+				continue;
+			}
+			indexed.entrySet().removeIf(entry -> {
+				if (seenEntry.getValue().contains(entry.getKey())) {
+					return false;
+				}
+				removeUsages(entry.getValue().usages);
+				return true;
+			});
+		}
+		logger.debug("Rescanned {} changed Perspective resources in {} projects for variable usages", scans.size(),
+			projectsToCheck.size());
+	}
+
+	/**
+	 * Finds the projects that inherit from a project, directly or through other projects. Only project manifests are
+	 * read, not resources.
+	 *
+	 * @param projectName The name of the parent project.
+	 * @return The inheriting projects, nearest first.
+	 */
+	private List<RuntimeProject> findDescendants(String projectName) {
+		Map<String, List<RuntimeProject>> childrenByParent = new HashMap<>();
+		for (String name : projectManager.getProjectNames()) {
+			Optional<RuntimeProject> project = projectManager.getProject(name);
+			if (project.isPresent()) {
+				String parent = project.get().getManifest().getParent();
+				if (parent != null && !parent.isEmpty()) {
+					childrenByParent.computeIfAbsent(parent, key -> new ArrayList<>()).add(project.get());
+				}
+			}
+		}
+
+		List<RuntimeProject> descendants = new ArrayList<>();
+		Set<String> visited = new HashSet<>(Collections.singleton(projectName));
+		Deque<String> pending = new ArrayDeque<>(visited);
+		while (!pending.isEmpty()) {
+			for (RuntimeProject child : childrenByParent.getOrDefault(pending.poll(), Collections.emptyList())) {
+				if (visited.add(child.getName())) {
+					descendants.add(child);
+					pending.add(child.getName());
+				}
+			}
+		}
+		return descendants;
+	}
+
+	private synchronized void removeProject(String projectName) {
+		Map<String, IndexedResource> indexed = projects.remove(projectName);
+		if (indexed != null) {
+			for (IndexedResource resource : indexed.values()) {
+				removeUsages(resource.usages);
+			}
+		}
+	}
+
+	private void removeUsages(List<VariableUsage> usages) {
+		for (VariableUsage usage : usages) {
+			Set<VariableUsage> existing = usagesByVariable.get(usage.variable);
+			if (existing != null) {
+				existing.remove(usage);
+				if (existing.isEmpty()) {
+					usagesByVariable.remove(usage.variable);
+				}
+			}
+		}
+	}
+
+	private static long fingerprint(byte[] data) {
+		if (data == null) {
+			return -1;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		return ((long) data.length << 32) ^ crc.getValue();
+	}
+
+	/**
+	 * Follows project changes. Updates run on the updater thread so the project manager is never blocked by a rescan.
+	 * A change to a project also rechecks the projects inheriting from it, since their inherited resources changed.
+	 */
+	private class IndexUpdater implements ProjectListener {
+		@Override
+		public void projectAdded(RuntimeProject project) {
+			scheduleUpdate(project);
+		}
+
+		@Override
+		public void projectUpdated(RuntimeProject project) {
+			scheduleUpdate(project);
+		}
+
+		@Override
+		public void projectDeleted(String projectName) {
+			schedule(() -> {
+				removeProject(projectName);
+				update(findDescendants(projectName));
+			});
+		}
+
+		private void scheduleUpdate(RuntimeProject project) {
+			schedule(() -> {
+				List<RuntimeProject> changed = new ArrayList<>();
+				changed.add(project);
+				changed.addAll(findDescendants(project.getName()));
+				update(changed);
+			});
+		}
+
+		private void schedule(Runnable task) {
+			try {
+				updater.execute(() -> {
+					try {
+						task.run();
+					} catch (RuntimeException e) {
+						logger.warn("Unable to update the variable usage index after a project change", e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				logger.debug("Ignoring project change after the variable usage index was stopped");
+			}
+		}
+	}
+
+	/**
+	 * The fingerprint of an indexed resource and the usages found in it.
+	 */
+	private static class IndexedResource {
+		final long fingerprint;
+		final List<VariableUsage> usages;
+
+		IndexedResource(long fingerprint, List<VariableUsage> usages) {
+			this.fingerprint = fingerprint;
+			this.usages = usages;
+		}
+	}
+
+	/**
+	 * A resource scan in progress.
+	 */
+	private static class Scan {
+		final String project;
+		final String key;
+		final long fingerprint;
+		final ForkJoinTask<List<VariableUsage>> task;
+
+		Scan(String project, String key, long fingerprint, ForkJoinTask<List<VariableUsage>> task) {
+			this.project = project;
+			this.key = key;
+			this.fingerprint = fingerprint;
+			this.task = task;
+		}
+	}
+}
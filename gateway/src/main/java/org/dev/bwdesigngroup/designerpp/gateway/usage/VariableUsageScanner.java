@@ -0,0 +1,171 @@
+package org.dev.bwdesigngroup.designerpp.gateway.usage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParseException;
+
+/**
+ * VariableUsageScanner finds every var(--name) reference in the JSON of a Perspective view or style class.
+ * <p>
+ * Resources that do not contain "var(" anywhere are rejected on the raw bytes, so only the views that actually use
+ * variables are parsed. Views are walked component by component, so each reference is reported with the path of
+ * component names from the view root and the dotted path of the property holding it.
+ *
+ * @author Aaron Rai
+ */
+class VariableUsageScanner {
+	private static final byte[] VAR_FUNCTION = "var(".getBytes(StandardCharsets.US_ASCII);
+	private static final Gson gson = new Gson();
+
+	private final String project;
+	private final String type;
+	private final String path;
+	private final List<VariableUsage> usages = new ArrayList<>();
+
+	private VariableUsageScanner(String project, String type, String path) {
+		this.project = project;
+		this.type = type;
+		this.path = path;
+	}
+
+	/**
+	 * Scans the JSON of a view or style class.
+	 *
+	 * @param project The project containing the resource.
+	 * @param type Either {@link VariableUsage#TYPE_VIEW} or {@link VariableUsage#TYPE_STYLE_CLASS}.
+	 * @param path The folder path of the resource.
+	 * @param data The resource's view.json or style.json, or null if it has none.
+	 * @return Every variable reference found, in document order.
+	 */
+	static List<VariableUsage> scan(String project, String type, String path, byte[] data) {
+		if (data == null || !contains(data, VAR_FUNCTION)) {
+			return Collections.emptyList();
+		}
+
+		JsonObject root;
+		try {
+			root = gson.fromJson(new String(data, StandardCharsets.UTF_8), JsonObject.class);
+		} catch (JsonParseException e) {
+			return Collections.emptyList();
+		}
+		if (root == null) {
+			return Collections.emptyList();
+		}
+
+		VariableUsageScanner scanner = new VariableUsageScanner(project, type, path);
+		if (VariableUsage.TYPE_VIEW.equals(type)) {
+			for (Map.Entry<String, JsonElement> member : root.entrySet()) {
+				if (member.getKey().equals("root") && member.getValue().isJsonObject()) {
+					scanner.scanComponent(member.getValue().getAsJsonObject(), componentName(member.getValue().getAsJsonObject(), "root"));
+				} else {
+					scanner.scanValue(member.getValue(), "", member.getKey());
+				}
+			}
+		} else {
+			scanner.scanValue(root, "", "");
+		}
+		return scanner.usages;
+	}
+
+	private void scanComponent(JsonObject component, String componentPath) {
+		for (Map.Entry<String, JsonElement> member : component.entrySet()) {
+			if (member.getKey().equals("children") && member.getValue().isJsonArray()) {
+				JsonArray children = member.getValue().getAsJsonArray();
+				for (int i = 0; i < children.size(); i++) {
+					JsonElement child = children.get(i);
+					if (child.isJsonObject()) {
+						String name = componentName(child.getAsJsonObject(), Integer.toString(i));
+						scanComponent(child.getAsJsonObject(), componentPath + "/" + name);
+					}
+				}
+			} else {
+				scanValue(member.getValue(), componentPath, member.getKey());
+			}
+		}
+	}
+
+	private void scanValue(JsonElement value, String componentPath, String property) {
+		if (value.isJsonObject()) {
+			for (Map.Entry<String, JsonElement> member : value.getAsJsonObject().entrySet()) {
+				scanValue(member.getValue(), componentPath, property.isEmpty() ? member.getKey() : property + "." + member.getKey());
+			}
+		} else if (value.isJsonArray()) {
+			JsonArray array = value.getAsJsonArray();
+			for (int i = 0; i < array.size(); i++) {
+				scanValue(array.get(i), componentPath, property + "[" + i + "]");
+			}
+		} else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+			for (String variable : findReferences(value.getAsString())) {
+				usages.add(new VariableUsage(variable, project, type, path, componentPath, property));
+			}
+		}
+	}
+
+	/**
+	 * Finds the names of every variable referenced by var() in a value, including references in fallbacks.
+	 *
+	 * @param value The value to search.
+	 * @return The referenced names, without the leading dashes.
+	 */
+	static List<String> findReferences(String value) {
+		List<String> names = null;
+		int start = value.indexOf("var(");
+		while (start >= 0) {
+			int i = start + 4;
+			while (i < value.length() && Character.isWhitespace(value.charAt(i))) {
+				i++;
+			}
+			if (value.startsWith("--", i)) {
+				int nameStart = i + 2;
+				int nameEnd = nameStart;
+				while (nameEnd < value.length() && isNameChar(value.charAt(nameEnd))) {
+					nameEnd++;
+				}
+				if (nameEnd > nameStart) {
+					if (names == null) {
+						names = new ArrayList<>(2);
+					}
+					names.add(value.substring(nameStart, nameEnd));
+				}
+			}
+			start = value.indexOf("var(", i);
+		}
+		return names == null ? Collections.emptyList() : names;
+	}
+
+	private static boolean isNameChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c >= 0x80;
+	}
+
+	private static String componentName(JsonObject component, String fallback) {
+		JsonElement meta = component.get("meta");
+		if (meta != null && meta.isJsonObject()) {
+			JsonElement name = meta.getAsJsonObject().get("name");
+			if (name != null && name.isJsonPrimitive()) {
+				return name.getAsString();
+			}
+		}
+		return fallback;
+	}
+
+	private static boolean contains(byte[] data, byte[] pattern) {
+		outer:
+		for (int i = 0, last = data.length - pattern.length; i <= last; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+}
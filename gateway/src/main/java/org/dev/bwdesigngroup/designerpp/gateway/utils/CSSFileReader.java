@@ -2,10 +2,14 @@ package org.dev.bwdesigngroup.designerpp.gateway.utils;
 
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
 import org.slf4j.Logger;
@@ -13,154 +17,269 @@ import org.slf4j.LoggerFactory;
 
 import com.inductiveautomation.ignition.common.gson.JsonObject;
 
-public class CSSFileReader {
+/**
+ * CSSFileReader reads the Perspective themes directory into {@link ThemeEntry} objects. The directory tree is walked
+ * once to find every CSS file, the files are parsed in parallel on a bounded pool, and the results are merged back in
+ * sorted path order so the output does not depend on thread scheduling or file system listing order. @import rules
+ * are followed to build each entry's file graph. Files whose fingerprint has not changed are served from the
+ * {@link ThemeFileIndex} instead of being parsed again.
+ * 
+ * @author Aaron Rai
+ */
+public class CSSFileReader implements AutoCloseable {
 	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".cssFileReader");
+	private static final int MAX_PARSER_THREADS = 8;
 
-	public JsonObject readCSSFiles(String directory) {
-		logger.debug("Reading CSS files from directory: {}", directory);
-		JsonObject result = new JsonObject();
-		
-		try {
-			Path themesPath = Paths.get(directory);
-			if (!Files.exists(themesPath)) {
-				logger.warn("Themes directory does not exist: {}", directory);
-				result.addProperty("success", false);
-				result.addProperty("error", "Themes directory not found");
-				return result;
+	private final ThemeFileIndex fileIndex;
+	private final ForkJoinPool parserPool;
+
+	/**
+	 * Constructor for the CSSFileReader. Creates a parser pool with one thread per core, up to {@value #MAX_PARSER_THREADS}.
+	 * 
+	 * @param fileIndex The index used to skip files that have not changed since they were last parsed.
+	 */
+	public CSSFileReader(ThemeFileIndex fileIndex) {
+		this(fileIndex, Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARSER_THREADS));
+	}
+
+	/**
+	 * Constructor for the CSSFileReader.
+	 * 
+	 * @param fileIndex The index used to skip files that have not changed since they were last parsed.
+	 * @param parallelism The maximum number of files parsed at the same time.
+	 */
+	public CSSFileReader(ThemeFileIndex fileIndex, int parallelism) {
+		this.fileIndex = fileIndex;
+		this.parserPool = new ForkJoinPool(Math.max(1, parallelism), pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(DesignerPlusPlusConstants.MODULE_ID + "-CSSParser-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * Reads theme entries from the themes directory. An entry is either a root-level CSS file (like dark.css) or a
+	 * theme directory (like dark/, sepasoft-light/).
+	 * <p>
+	 * Each entry's files are read together with every file they @import, directly or indirectly, so a root-level
+	 * theme file like dark-warm.css that imports dark/index.css and dark-warm/index.css holds the variables of both
+	 * directories. Imported files come before the file importing them, matching the CSS cascade. A file imported by
+	 * several entries is parsed once per call and shared between them.
+	 * 
+	 * @param themesPath The path to the themes directory.
+	 * @param entryNames The names of the entries to read, or null to read every entry.
+	 * @return The entries that exist, keyed and ordered by entry name.
+	 * @throws IOException If an I/O error occurs while walking the directory or reading files.
+	 */
+	public SortedMap<String, ThemeEntry> readThemeEntries(Path themesPath, Collection<String> entryNames) throws IOException {
+		themesPath = themesPath.toAbsolutePath().normalize();
+		SortedMap<String, List<Path>> filesByEntry = new TreeMap<>();
+		Set<String> directories = new HashSet<>();
+
+		if (entryNames == null) {
+			collectCssFiles(themesPath, themesPath, filesByEntry, directories);
+			fileIndex.retain(themesPath, allFiles(filesByEntry.values()));
+		} else {
+			for (String entryName : entryNames) {
+				Path entryPath = themesPath.resolve(entryName);
+				if (Files.exists(entryPath)) {
+					collectCssFiles(themesPath, entryPath, filesByEntry, directories);
+				}
+				fileIndex.retain(entryPath, filesByEntry.getOrDefault(entryName, Collections.emptyList()));
+			}
+		}
+
+		// Submit every file found up front. Imported files outside the entries being read are submitted as the
+		// import graph reaches them.
+		Map<Path, ForkJoinTask<ParsedCSSFile>> parseTasks = new HashMap<>();
+		for (List<Path> cssFiles : filesByEntry.values()) {
+			for (Path cssFile : cssFiles) {
+				submit(cssFile, parseTasks);
 			}
-			
-			JsonObject themes = new JsonObject();
-			int totalFiles = 0;
-			
-			// Process root-level CSS files (like dark.css, light.css, etc.)
-			try (Stream<Path> rootFiles = Files.list(themesPath)) {
-				List<Path> rootCssFiles = rootFiles
-					.filter(Files::isRegularFile)
-					.filter(path -> path.toString().endsWith(".css"))
-					.collect(Collectors.toList());
-					
-				for (Path cssFile : rootCssFiles) {
-					String content = Files.readString(cssFile);
-					JsonObject variables = extractRootVariables(content);
-					
-					if (variables.size() > 0) {
-						String themeName = cssFile.getFileName().toString().replace(".css", "");
-						themes.add(themeName, variables);
+		}
+
+		SortedMap<String, ThemeEntry> entries = new TreeMap<>();
+		for (Map.Entry<String, List<Path>> fileEntry : filesByEntry.entrySet()) {
+			String entryName = fileEntry.getKey();
+			Set<String> dependencies = new TreeSet<>();
+			dependencies.add(entryName);
+			Map<Path, JsonObject> fileGraph = new LinkedHashMap<>();
+			Set<Path> visited = new HashSet<>();
+			for (Path cssFile : fileEntry.getValue()) {
+				visit(themesPath, cssFile, parseTasks, visited, fileGraph, dependencies);
+			}
+
+			if (directories.contains(entryName)) {
+				Path themeDir = themesPath.resolve(entryName);
+				JsonObject themeData = new JsonObject();
+				for (Map.Entry<Path, JsonObject> file : fileGraph.entrySet()) {
+					if (file.getValue().size() > 0) {
+						// Create a relative path from theme directory
+						themeData.add(themeDir.relativize(file.getKey()).toString(), file.getValue());
 					}
-					totalFiles++;
 				}
-			}
-			
-			// Process theme directories (like dark/, light/, sepasoft-light/, etc.)
-			try (Stream<Path> directories = Files.list(themesPath)) {
-				List<Path> themeDirs = directories
-					.filter(Files::isDirectory)
-					.collect(Collectors.toList());
-					
-				for (Path themeDir : themeDirs) {
-					String themeName = themeDir.getFileName().toString();
-					JsonObject themeVariables = processThemeDirectory(themeDir);
-					
-					if (themeVariables.size() > 0) {
-						themes.add(themeName, themeVariables);
+				entries.put(entryName, new ThemeEntry(entryName, true, themeData, fileGraph.keySet(), dependencies));
+			} else if (fileGraph.size() == 1) {
+				JsonObject variables = fileGraph.values().iterator().next();
+				entries.put(entryName, new ThemeEntry(entryName, false, variables, fileGraph.keySet(), dependencies));
+			} else {
+				JsonObject themeData = new JsonObject();
+				for (Map.Entry<Path, JsonObject> file : fileGraph.entrySet()) {
+					if (file.getValue().size() > 0) {
+						themeData.add(themesPath.relativize(file.getKey()).toString(), file.getValue());
 					}
-					
-					// Count files in this directory
-					totalFiles += countCssFiles(themeDir);
 				}
+				entries.put(entryName, new ThemeEntry(entryName, false, themeData, fileGraph.keySet(), dependencies));
 			}
-			
-			result.addProperty("success", true);
-			result.add("themes", themes);
-			result.addProperty("filesProcessed", totalFiles);
-			logger.info("Successfully processed {} CSS files across all themes", totalFiles);
-			
-		} catch (IOException e) {
-			logger.error("Error reading CSS files from directory: {}", directory, e);
-			result.addProperty("success", false);
-			result.addProperty("error", e.getMessage());
 		}
 
-		return result;
+		logger.debug("Read {} theme entries containing {} CSS files", entries.size(), parseTasks.size());
+		return entries;
 	}
 
 	/**
-	 * Processes a theme directory to extract CSS variables from its CSS files.
+	 * Adds a file to an entry's file graph after the files it imports, depth first. A file already visited for the
+	 * entry is skipped, which also breaks import cycles.
 	 * 
-	 * @param themeDir The path to the theme directory.
-	 * @return A JsonObject containing the extracted CSS variables for this theme.
-	 * @throws IOException If an I/O error occurs while reading files.
+	 * @param themesPath The normalized path to the themes directory.
+	 * @param cssFile The file to add.
+	 * @param parseTasks The parse task of every file seen so far in this read, keyed by path.
+	 * @param visited The files already visited for this entry.
+	 * @param fileGraph The variables of every file read for this entry, in cascade order.
+	 * @param dependencies The names of the top-level entries the entry's files belong to.
+	 * @throws IOException If an I/O error occurs while reading a file.
 	 */
-	private JsonObject processThemeDirectory(Path themeDir) throws IOException {
-		JsonObject themeData = new JsonObject();
-		
-		// Process all CSS files in this theme directory recursively
-		try (Stream<Path> files = Files.walk(themeDir)) {
-			List<Path> cssFiles = files
-				.filter(Files::isRegularFile)
-				.filter(path -> path.toString().endsWith(".css"))
-				.collect(Collectors.toList());
-				
-			for (Path cssFile : cssFiles) {
-				String content = Files.readString(cssFile);
-				JsonObject variables = extractRootVariables(content);
-				
-				if (variables.size() > 0) {
-					// Create a relative path from theme directory
-					String relativePath = themeDir.relativize(cssFile).toString();
-					themeData.add(relativePath, variables);
-				}
+	private void visit(Path themesPath, Path cssFile, Map<Path, ForkJoinTask<ParsedCSSFile>> parseTasks, Set<Path> visited,
+			Map<Path, JsonObject> fileGraph, Set<String> dependencies) throws IOException {
+		if (!visited.add(cssFile)) {
+			return;
+		}
+
+		ParsedCSSFile parsed = join(submit(cssFile, parseTasks), cssFile);
+		for (String target : parsed.getImports()) {
+			Path imported = resolveImport(themesPath, cssFile, target);
+			if (imported == null) {
+				continue;
+			}
+			// Depend on the entry even if the file does not exist yet, so creating it re-reads this entry
+			dependencies.add(themesPath.relativize(imported).getName(0).toString());
+			if (Files.isRegularFile(imported)) {
+				visit(themesPath, imported, parseTasks, visited, fileGraph, dependencies);
+			} else {
+				logger.debug("Ignoring import of missing file {} from {}", target, cssFile);
 			}
 		}
-		
-		return themeData;
+		fileGraph.put(cssFile, parsed.getVariables());
 	}
-	
+
 	/**
-	 * Counts the number of CSS files in a directory and its subdirectories.
+	 * Resolves an @import target against the file importing it.
 	 * 
-	 * @param directory The directory to search for CSS files.
-	 * @return The count of CSS files found.
-	 * @throws IOException If an I/O error occurs while reading the directory.
+	 * @return The imported file, or null if the target is a remote URL or outside the themes directory.
 	 */
-	private int countCssFiles(Path directory) throws IOException {
-		try (Stream<Path> files = Files.walk(directory)) {
-			int count = (int) files
-				.filter(Files::isRegularFile)
-				.filter(path -> path.toString().endsWith(".css"))
-				.count();
-			logger.debug("Found {} CSS files in directory: {}", count, directory);
-			return count;
+	private static Path resolveImport(Path themesPath, Path cssFile, String target) {
+		int end = target.length();
+		for (int i = 0; i < target.length(); i++) {
+			char c = target.charAt(i);
+			if (c == '?' || c == '#') {
+				end = i;
+				break;
+			}
+			if (c == ':' || (c == '/' && i == 1 && target.charAt(0) == '/')) {
+				// A scheme such as https: or data:, or a protocol-relative URL
+				return null;
+			}
+		}
+		if (end == 0) {
+			return null;
 		}
+
+		Path imported;
+		try {
+			imported = cssFile.getParent().resolve(target.substring(0, end)).normalize();
+		} catch (InvalidPathException e) {
+			return null;
+		}
+		if (!imported.startsWith(themesPath) || imported.equals(themesPath)) {
+			logger.debug("Ignoring import outside the themes directory: {} from {}", target, cssFile);
+			return null;
+		}
+		return imported;
+	}
+
+	private ForkJoinTask<ParsedCSSFile> submit(Path cssFile, Map<Path, ForkJoinTask<ParsedCSSFile>> parseTasks) {
+		return parseTasks.computeIfAbsent(cssFile, file -> parserPool.submit(() -> fileIndex.parse(file)));
 	}
 
 	/**
-	 * Extracts CSS custom properties defined in :root blocks from the given CSS content.
+	 * Walks a path once, grouping every CSS file found by the top-level theme entry it belongs to.
 	 * 
-	 * @param cssContent The content of a CSS file as a string.
-	 * @return A JsonObject containing the extracted CSS variables.
+	 * @param themesPath The path to the themes directory.
+	 * @param start The path to walk, either the themes directory itself or one of its entries.
+	 * @param filesByEntry The CSS files found, keyed by entry name. Each list is sorted by path.
+	 * @param directories The entry names that are theme directories.
+	 * @throws IOException If an I/O error occurs while walking the directory.
+	 */
+	private void collectCssFiles(Path themesPath, Path start, Map<String, List<Path>> filesByEntry, Set<String> directories) throws IOException {
+		List<Path> cssFiles;
+		try (Stream<Path> files = Files.walk(start)) {
+			cssFiles = files
+				.filter(path -> !path.equals(themesPath))
+				.filter(path -> {
+					if (Files.isDirectory(path)) {
+						if (path.getParent().equals(themesPath)) {
+							String entryName = path.getFileName().toString();
+							directories.add(entryName);
+							filesByEntry.computeIfAbsent(entryName, name -> new ArrayList<>());
+						}
+						return false;
+					}
+					return Files.isRegularFile(path) && path.toString().endsWith(".css");
+				})
+				.sorted()
+				.collect(Collectors.toList());
+		}
+
+		for (Path cssFile : cssFiles) {
+			String entryName = themesPath.relativize(cssFile).getName(0).toString();
+			filesByEntry.computeIfAbsent(entryName, name -> new ArrayList<>()).add(cssFile);
+		}
+	}
+
+	private static List<Path> allFiles(Collection<List<Path>> fileLists) {
+		List<Path> all = new ArrayList<>();
+		for (List<Path> files : fileLists) {
+			all.addAll(files);
+		}
+		return all;
+	}
+
+	/**
+	 * Waits for a parse task to finish, rethrowing any I/O error it raised.
 	 */
-	private JsonObject extractRootVariables(String cssContent) {
-		JsonObject variables = new JsonObject();
-		
-		// Regex to match :root blocks
-		Pattern rootPattern = Pattern.compile(":root\\s*\\{([^}]+)\\}", Pattern.DOTALL);
-		Matcher rootMatcher = rootPattern.matcher(cssContent);
-		
-		while (rootMatcher.find()) {
-			String rootContent = rootMatcher.group(1);
-			
-			// Extract CSS custom properties (--variable-name: value;)
-			Pattern varPattern = Pattern.compile("--([^:]+):\\s*([^;]+);");
-			Matcher varMatcher = varPattern.matcher(rootContent);
-			
-			while (varMatcher.find()) {
-				String varName = varMatcher.group(1).trim();
-				String varValue = varMatcher.group(2).trim();
-				variables.addProperty(varName, varValue);
+	private static ParsedCSSFile join(ForkJoinTask<ParsedCSSFile> task, Path cssFile) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing " + cssFile, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
 			}
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			throw new IOException("Error parsing " + cssFile, cause);
 		}
-		
-		return variables;
+	}
+
+	/**
+	 * Shuts down the parser pool.
+	 */
+	@Override
+	public void close() {
+		parserPool.shutdownNow();
 	}
 }
@@ -0,0 +1,578 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * CSSVariableScanner extracts CSS custom properties declared in :root rules with a single forward pass over the
+ * raw bytes of a stylesheet. Every structural character in CSS is ASCII and can never appear inside a multi-byte
+ * UTF-8 sequence, so the scanner works on bytes directly and only decodes the final variable names and values.
+ * <p>
+ * Comments, quoted strings, nested blocks inside values and :root rules scoped by @media, @supports, @layer or
+ * @container are all handled. The targets of top-level @import rules are recorded so the reader can follow them.
+ * Small files are read into a heap buffer, larger ones are memory-mapped so that multi-megabyte bundles do not need a
+ * heap copy of their contents.
+ * <p>
+ * Instances are not thread-safe; create one per file.
+ *
+ * @author Aaron Rai
+ */
+public class CSSVariableScanner {
+	/** Files at least this large are memory-mapped instead of read into the heap. */
+	static final long MAPPED_FILE_THRESHOLD = 1024 * 1024;
+
+	private static final byte[] ROOT_SELECTOR = {':', 'r', 'o', 'o', 't'};
+	private static final byte[] IMPORTANT = {'!', 'i', 'm', 'p', 'o', 'r', 't', 'a', 'n', 't'};
+	private static final byte[] IMPORT_RULE = {'@', 'i', 'm', 'p', 'o', 'r', 't'};
+	private static final byte[] URL_FUNCTION = {'u', 'r', 'l', '('};
+	private static final String[] GROUPING_AT_RULES = {"media", "supports", "layer", "container", "document"};
+
+	private final ByteBuffer buffer;
+	private final int limit;
+	private final JsonObject variables = new JsonObject();
+	private final List<String> imports = new ArrayList<>();
+	private byte[] scratch = new byte[256];
+	private int pos;
+
+	/**
+	 * Constructor for the CSSVariableScanner.
+	 *
+	 * @param buffer The UTF-8 encoded stylesheet, read from its current position to its limit.
+	 */
+	public CSSVariableScanner(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.limit = buffer.limit();
+		this.pos = buffer.position();
+	}
+
+	/**
+	 * Reads a CSS file and extracts the custom properties declared in its :root rules.
+	 *
+	 * @param cssFile The path to the CSS file.
+	 * @return A JsonObject mapping variable names (without the leading dashes) to their values.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public static JsonObject scanFile(Path cssFile) throws IOException {
+		return new CSSVariableScanner(readFile(cssFile)).scan();
+	}
+
+	/**
+	 * Reads a CSS file into a buffer, memory-mapping it if it is at least {@value #MAPPED_FILE_THRESHOLD} bytes.
+	 *
+	 * @param cssFile The path to the CSS file.
+	 * @return A buffer positioned at the start of the file contents.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public static ByteBuffer readFile(Path cssFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(cssFile, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size >= MAPPED_FILE_THRESHOLD) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// keep reading until the buffer is full or the end of the file is reached
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	/**
+	 * Scans the whole buffer.
+	 *
+	 * @return A JsonObject mapping variable names (without the leading dashes) to their values.
+	 */
+	public JsonObject scan() {
+		skipByteOrderMark();
+		scanRules(false);
+		return variables;
+	}
+
+	/**
+	 * @return The targets of the @import rules found by {@link #scan()}, in the order they appear, exactly as written
+	 * in the stylesheet.
+	 */
+	public List<String> getImports() {
+		return Collections.unmodifiableList(imports);
+	}
+
+	/**
+	 * Scans a list of rules, either at the top level of the stylesheet or inside a grouping at-rule.
+	 *
+	 * @param nested True if the rules are inside a block, in which case a closing brace ends the list.
+	 */
+	private void scanRules(boolean nested) {
+		while (true) {
+			skipWhitespaceAndComments();
+			if (pos >= limit) {
+				return;
+			}
+
+			byte c = buffer.get(pos);
+			if (c == '}') {
+				pos++;
+				if (nested) {
+					return;
+				}
+				continue;
+			}
+
+			int preludeStart = pos;
+			int preludeEnd = skipPrelude();
+			if (pos >= limit) {
+				return;
+			}
+
+			c = buffer.get(pos);
+			if (c == ';') {
+				// Statement at-rule such as @import or @charset
+				if (!nested && startsWithIgnoreCase(preludeStart, preludeEnd, IMPORT_RULE)) {
+					scanImport(preludeStart + IMPORT_RULE.length, preludeEnd);
+				}
+				pos++;
+			} else if (c == '{') {
+				pos++;
+				if (buffer.get(preludeStart) == '@') {
+					if (isGroupingAtRule(preludeStart + 1, preludeEnd)) {
+						scanRules(true);
+					} else {
+						skipBlock();
+					}
+				} else if (isRootSelector(preludeStart, preludeEnd)) {
+					scanDeclarations();
+				} else {
+					skipBlock();
+				}
+			}
+			// A closing brace is handled at the top of the loop
+		}
+	}
+
+	/**
+	 * Scans the declarations of a :root block up to and including its closing brace.
+	 */
+	private void scanDeclarations() {
+		while (true) {
+			skipWhitespaceAndComments();
+			if (pos >= limit) {
+				return;
+			}
+
+			byte c = buffer.get(pos);
+			if (c == '}') {
+				pos++;
+				return;
+			}
+			if (c == ';') {
+				pos++;
+				continue;
+			}
+
+			int nameStart = pos;
+			while (pos < limit) {
+				c = buffer.get(pos);
+				if (c == ':' || c == ';' || c == '{' || c == '}' || isWhitespace(c) || startsComment(pos)) {
+					break;
+				}
+				pos++;
+			}
+			int nameEnd = pos;
+			skipWhitespaceAndComments();
+			if (pos >= limit) {
+				return;
+			}
+
+			c = buffer.get(pos);
+			if (c == ':') {
+				pos++;
+				boolean custom = nameEnd - nameStart > 2 && buffer.get(nameStart) == '-' && buffer.get(nameStart + 1) == '-';
+				if (!scanValue(custom, nameStart + 2, nameEnd)) {
+					return;
+				}
+			} else if (c == '{') {
+				// Nested rule inside :root
+				pos++;
+				skipBlock();
+			} else if (c != ';' && c != '}') {
+				// Not a declaration we understand, skip it up to the next semicolon
+				if (!scanValue(false, 0, 0)) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scans a declaration value up to the next top-level semicolon or closing brace, recording it if the declaration
+	 * is a custom property.
+	 *
+	 * @param custom True if the declaration is a custom property whose value should be recorded.
+	 * @param nameStart The start of the variable name, excluding the leading dashes.
+	 * @param nameEnd The end of the variable name.
+	 * @return False if the value closed the enclosing :root block.
+	 */
+	private boolean scanValue(boolean custom, int nameStart, int nameEnd) {
+		int length = 0;
+		int depth = 0;
+
+		while (pos < limit) {
+			byte c = buffer.get(pos);
+			if (startsComment(pos)) {
+				skipComment();
+				continue;
+			}
+			if (c == '"' || c == '\'') {
+				int stringStart = pos;
+				skipString(c);
+				if (custom) {
+					length = copy(stringStart, pos, length);
+				}
+				continue;
+			}
+			if (depth == 0 && (c == ';' || c == '}')) {
+				break;
+			}
+			if (c == '{' && depth == 0 && !custom) {
+				// A nested rule whose selector looked like a declaration, e.g. "&:hover { ... }"
+				pos++;
+				skipBlock();
+				return true;
+			}
+			if (c == '(' || c == '[' || c == '{') {
+				depth++;
+			} else if (c == ')' || c == ']' || c == '}') {
+				depth--;
+			}
+			if (custom) {
+				length = append(c, length);
+			}
+			pos++;
+		}
+
+		if (custom) {
+			emit(nameStart, nameEnd, length);
+		}
+		if (pos >= limit) {
+			return false;
+		}
+		if (buffer.get(pos) == '}') {
+			pos++;
+			return false;
+		}
+		pos++;
+		return true;
+	}
+
+	/**
+	 * Records the target of an @import rule, written either as a string or as a url() with or without quotes. Any
+	 * layer, supports or media conditions after the target are ignored.
+	 *
+	 * @param start The position just after the @import keyword.
+	 * @param end The end of the rule's prelude.
+	 */
+	private void scanImport(int start, int end) {
+		int i = start;
+		while (i < end && isWhitespace(buffer.get(i))) {
+			i++;
+		}
+		boolean url = startsWithIgnoreCase(i, end, URL_FUNCTION);
+		if (url) {
+			i += URL_FUNCTION.length;
+			while (i < end && isWhitespace(buffer.get(i))) {
+				i++;
+			}
+		}
+		if (i >= end) {
+			return;
+		}
+
+		int targetStart;
+		int targetEnd;
+		byte quote = buffer.get(i);
+		if (quote == '"' || quote == '\'') {
+			targetStart = ++i;
+			while (i < end && buffer.get(i) != quote) {
+				i++;
+			}
+			targetEnd = i;
+		} else if (url) {
+			targetStart = i;
+			while (i < end && buffer.get(i) != ')' && !isWhitespace(buffer.get(i))) {
+				i++;
+			}
+			targetEnd = i;
+		} else {
+			return;
+		}
+
+		if (targetEnd > targetStart) {
+			int length = copy(targetStart, targetEnd, 0);
+			imports.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Decodes a variable name from the buffer and its value from the scratch array and records them.
+	 */
+	private void emit(int nameStart, int nameEnd, int valueLength) {
+		int start = 0;
+		int end = valueLength;
+		while (start < end && isWhitespace(scratch[start])) {
+			start++;
+		}
+		while (end > start && isWhitespace(scratch[end - 1])) {
+			end--;
+		}
+		if (endsWith(scratch, start, end, IMPORTANT)) {
+			end -= IMPORTANT.length;
+			while (end > start && isWhitespace(scratch[end - 1])) {
+				end--;
+			}
+		}
+		String value = new String(scratch, start, end - start, StandardCharsets.UTF_8);
+
+		int nameLength = nameEnd - nameStart;
+		int valueBytes = end - start;
+		// The value is already decoded, so the name can reuse the scratch array
+		ensureScratch(nameLength);
+		for (int i = 0; i < nameLength; i++) {
+			scratch[i] = buffer.get(nameStart + i);
+		}
+		String name = new String(scratch, 0, nameLength, StandardCharsets.UTF_8);
+
+		if (valueBytes > 0) {
+			variables.addProperty(name, value);
+		}
+	}
+
+	/**
+	 * Skips an at-rule or selector prelude, stopping at the next top-level '{', ';' or '}'.
+	 *
+	 * @return The end of the prelude, excluding trailing whitespace.
+	 */
+	private int skipPrelude() {
+		int depth = 0;
+		int end = pos;
+		while (pos < limit) {
+			byte c = buffer.get(pos);
+			if (startsComment(pos)) {
+				skipComment();
+				continue;
+			}
+			if (c == '"' || c == '\'') {
+				skipString(c);
+				end = pos;
+				continue;
+			}
+			if (depth == 0 && (c == '{' || c == ';' || c == '}')) {
+				break;
+			}
+			if (c == '(' || c == '[') {
+				depth++;
+			} else if (c == ')' || c == ']') {
+				depth--;
+			}
+			pos++;
+			if (!isWhitespace(c)) {
+				end = pos;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Skips the contents of a block up to and including its matching closing brace.
+	 */
+	private void skipBlock() {
+		int depth = 1;
+		while (pos < limit) {
+			byte c = buffer.get(pos);
+			if (startsComment(pos)) {
+				skipComment();
+				continue;
+			}
+			if (c == '"' || c == '\'') {
+				skipString(c);
+				continue;
+			}
+			pos++;
+			if (c == '{') {
+				depth++;
+			} else if (c == '}' && --depth == 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Skips a quoted string, including its closing quote. Escaped characters are skipped as a pair.
+	 */
+	private void skipString(byte quote) {
+		pos++;
+		while (pos < limit) {
+			byte c = buffer.get(pos++);
+			if (c == '\\') {
+				pos++;
+			} else if (c == quote || c == '\n') {
+				return;
+			}
+		}
+		pos = Math.min(pos, limit);
+	}
+
+	private void skipComment() {
+		pos += 2;
+		while (pos < limit) {
+			if (buffer.get(pos) == '*' && pos + 1 < limit && buffer.get(pos + 1) == '/') {
+				pos += 2;
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private void skipWhitespaceAndComments() {
+		while (pos < limit) {
+			if (isWhitespace(buffer.get(pos))) {
+				pos++;
+			} else if (startsComment(pos)) {
+				skipComment();
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipByteOrderMark() {
+		if (limit - pos >= 3 && buffer.get(pos) == (byte) 0xEF && buffer.get(pos + 1) == (byte) 0xBB && buffer.get(pos + 2) == (byte) 0xBF) {
+			pos += 3;
+		}
+	}
+
+	/**
+	 * Checks whether any selector in a comma-separated selector list is exactly :root.
+	 */
+	private boolean isRootSelector(int start, int end) {
+		int matched = 0;
+		boolean candidate = true;
+		int i = start;
+		while (i < end) {
+			byte c = buffer.get(i);
+			if (c == '/' && i + 1 < end && buffer.get(i + 1) == '*') {
+				i += 2;
+				while (i < end && !(buffer.get(i) == '*' && i + 1 < end && buffer.get(i + 1) == '/')) {
+					i++;
+				}
+				i += 2;
+				continue;
+			}
+			if (c == ',') {
+				if (candidate && matched == ROOT_SELECTOR.length) {
+					return true;
+				}
+				matched = 0;
+				candidate = true;
+			} else if (!isWhitespace(c)) {
+				if (candidate && matched < ROOT_SELECTOR.length && toLowerAscii(c) == ROOT_SELECTOR[matched]) {
+					matched++;
+				} else {
+					candidate = false;
+				}
+			}
+			i++;
+		}
+		return candidate && matched == ROOT_SELECTOR.length;
+	}
+
+	/**
+	 * Checks whether the at-keyword starting at the given position is a grouping rule that can contain :root rules.
+	 */
+	private boolean isGroupingAtRule(int start, int end) {
+		for (String atRule : GROUPING_AT_RULES) {
+			int length = atRule.length();
+			if (end - start < length) {
+				continue;
+			}
+			boolean matches = true;
+			for (int i = 0; i < length && matches; i++) {
+				matches = toLowerAscii(buffer.get(start + i)) == atRule.charAt(i);
+			}
+			if (matches && (end - start == length || !isIdentifierByte(buffer.get(start + length)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int copy(int from, int to, int length) {
+		for (int i = from; i < to; i++) {
+			length = append(buffer.get(i), length);
+		}
+		return length;
+	}
+
+	private int append(byte c, int length) {
+		ensureScratch(length + 1);
+		scratch[length] = c;
+		return length + 1;
+	}
+
+	private void ensureScratch(int capacity) {
+		if (capacity > scratch.length) {
+			byte[] grown = new byte[Math.max(capacity, scratch.length * 2)];
+			System.arraycopy(scratch, 0, grown, 0, scratch.length);
+			scratch = grown;
+		}
+	}
+
+	private boolean startsComment(int index) {
+		return buffer.get(index) == '/' && index + 1 < limit && buffer.get(index + 1) == '*';
+	}
+
+	private boolean startsWithIgnoreCase(int start, int end, byte[] prefix) {
+		if (end - start < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (toLowerAscii(buffer.get(start + i)) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean endsWith(byte[] bytes, int start, int end, byte[] suffix) {
+		if (end - start < suffix.length) {
+			return false;
+		}
+		int offset = end - suffix.length;
+		for (int i = 0; i < suffix.length; i++) {
+			if (toLowerAscii(bytes[offset + i]) != suffix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+	}
+
+	private static boolean isIdentifierByte(byte c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c < 0;
+	}
+
+	private static byte toLowerAscii(byte c) {
+		return c >= 'A' && c <= 'Z' ? (byte) (c + ('a' - 'A')) : c;
+	}
+}
@@ -0,0 +1,194 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.dev.bwdesigngroup.designerpp.common.utils.ColorSpaces;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ColorIndex finds the theme variables whose colors look closest to a given color. Every color variable of every
+ * theme is placed in a k-d tree over its OKLab coordinates, so a lookup visits only a few branches of the tree
+ * instead of every color.
+ * <p>
+ * The tree is stored implicitly: the points are reordered so that the median of each range is the node splitting
+ * that range, on the axis given by its depth.
+ *
+ * @author Aaron Rai
+ */
+public class ColorIndex {
+	private static final int DIMENSIONS = 3;
+
+	private final String[] themes;
+	private final String[] names;
+	private final String[] values;
+	private final int[] colors;
+	private final double[] points;
+
+	/**
+	 * Builds the index from the resolved variables of every theme.
+	 *
+	 * @param themeEntries The themes to index, keyed by theme name.
+	 */
+	public ColorIndex(Map<String, ThemeEntry> themeEntries) {
+		List<String> themeList = new ArrayList<>();
+		List<String> nameList = new ArrayList<>();
+		List<String> valueList = new ArrayList<>();
+		List<Integer> colorList = new ArrayList<>();
+		for (Map.Entry<String, ThemeEntry> theme : themeEntries.entrySet()) {
+			ThemeVariables variables = theme.getValue().getSortedVariables();
+			for (int i = 0; i < variables.names.length; i++) {
+				JsonObject resolved = variables.resolved[i];
+				if (resolved.has("argb")) {
+					themeList.add(theme.getKey());
+					nameList.add(variables.names[i]);
+					valueList.add(resolved.get("value").getAsString());
+					colorList.add(resolved.get("argb").getAsInt());
+				}
+			}
+		}
+
+		int size = colorList.size();
+		Integer[] order = new Integer[size];
+		double[] unordered = new double[size * DIMENSIONS];
+		double[] lab = new double[DIMENSIONS];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+			ColorSpaces.argbToOklab(colorList.get(i), lab);
+			System.arraycopy(lab, 0, unordered, i * DIMENSIONS, DIMENSIONS);
+		}
+		build(order, 0, size, 0, unordered);
+
+		this.themes = new String[size];
+		this.names = new String[size];
+		this.values = new String[size];
+		this.colors = new int[size];
+		this.points = new double[size * DIMENSIONS];
+		for (int i = 0; i < size; i++) {
+			int source = order[i];
+			themes[i] = themeList.get(source);
+			names[i] = nameList.get(source);
+			values[i] = valueList.get(source);
+			colors[i] = colorList.get(source);
+			System.arraycopy(unordered, source * DIMENSIONS, points, i * DIMENSIONS, DIMENSIONS);
+		}
+	}
+
+	/**
+	 * @return The number of indexed colors.
+	 */
+	public int size() {
+		return colors.length;
+	}
+
+	/**
+	 * Finds the variables whose colors are closest to the given color.
+	 *
+	 * @param argb The packed ARGB color to look for. Alpha is ignored.
+	 * @param count The maximum number of variables to return.
+	 * @return The closest variables, nearest first. Each has its "theme", "name", resolved "value", "argb" and
+	 * "distance", the OKLab distance multiplied by 100. Colors less than about 2 apart are hard to tell apart.
+	 */
+	public JsonArray nearest(int argb, int count) {
+		double[] target = new double[DIMENSIONS];
+		ColorSpaces.argbToOklab(argb, target);
+
+		Neighbors neighbors = new Neighbors(Math.max(0, Math.min(count, colors.length)));
+		if (neighbors.capacity > 0) {
+			search(0, colors.length, 0, target, neighbors);
+		}
+
+		JsonArray result = new JsonArray();
+		for (int i = 0; i < neighbors.size; i++) {
+			int index = neighbors.indexes[i];
+			JsonObject match = new JsonObject();
+			match.addProperty("theme", themes[index]);
+			match.addProperty("name", names[index]);
+			match.addProperty("value", values[index]);
+			match.addProperty("argb", colors[index]);
+			match.addProperty("distance", Math.round(Math.sqrt(neighbors.distances[i]) * 10000) / 100.0);
+			result.add(match);
+		}
+		return result;
+	}
+
+	private void search(int from, int to, int depth, double[] target, Neighbors neighbors) {
+		if (from >= to) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		int axis = depth % DIMENSIONS;
+		neighbors.offer(middle, squaredDistance(middle, target));
+
+		double delta = target[axis] - points[middle * DIMENSIONS + axis];
+		if (delta < 0) {
+			search(from, middle, depth + 1, target, neighbors);
+			if (delta * delta < neighbors.worst()) {
+				search(middle + 1, to, depth + 1, target, neighbors);
+			}
+		} else {
+			search(middle + 1, to, depth + 1, target, neighbors);
+			if (delta * delta < neighbors.worst()) {
+				search(from, middle, depth + 1, target, neighbors);
+			}
+		}
+	}
+
+	private double squaredDistance(int index, double[] target) {
+		double sum = 0;
+		for (int axis = 0; axis < DIMENSIONS; axis++) {
+			double delta = points[index * DIMENSIONS + axis] - target[axis];
+			sum += delta * delta;
+		}
+		return sum;
+	}
+
+	private static void build(Integer[] order, int from, int to, int depth, double[] points) {
+		if (to - from <= 1) {
+			return;
+		}
+		int axis = depth % DIMENSIONS;
+		Arrays.sort(order, from, to, (a, b) -> Double.compare(points[a * DIMENSIONS + axis], points[b * DIMENSIONS + axis]));
+		int middle = (from + to) >>> 1;
+		build(order, from, middle, depth + 1, points);
+		build(order, middle + 1, to, depth + 1, points);
+	}
+
+	/**
+	 * The closest points found so far, kept sorted by distance.
+	 */
+	private static class Neighbors {
+		final int capacity;
+		final int[] indexes;
+		final double[] distances;
+		int size;
+
+		Neighbors(int capacity) {
+			this.capacity = capacity;
+			this.indexes = new int[capacity];
+			this.distances = new double[capacity];
+		}
+
+		double worst() {
+			return size < capacity ? Double.POSITIVE_INFINITY : distances[size - 1];
+		}
+
+		void offer(int index, double distance) {
+			if (distance >= worst()) {
+				return;
+			}
+			int position = size < capacity ? size++ : size - 1;
+			while (position > 0 && distances[position - 1] > distance) {
+				indexes[position] = indexes[position - 1];
+				distances[position] = distances[position - 1];
+				position--;
+			}
+			indexes[position] = index;
+			distances[position] = distance;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ParsedCSSFile is what the {@link CSSVariableScanner} found in one CSS file: the custom properties declared in its
+ * :root rules and the targets of its @import rules. Instances are shared by every theme that reads the file and must
+ * not be modified.
+ *
+ * @author Aaron Rai
+ */
+public class ParsedCSSFile {
+	private final JsonObject variables;
+	private final List<String> imports;
+
+	/**
+	 * Constructor for the ParsedCSSFile.
+	 *
+	 * @param variables The variables declared in the file, keyed by name without the leading dashes.
+	 * @param imports The @import targets, in the order they appear, exactly as written in the file.
+	 */
+	public ParsedCSSFile(JsonObject variables, List<String> imports) {
+		this.variables = variables;
+		this.imports = imports.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(imports);
+	}
+
+	public JsonObject getVariables() {
+		return variables;
+	}
+
+	public List<String> getImports() {
+		return imports;
+	}
+}
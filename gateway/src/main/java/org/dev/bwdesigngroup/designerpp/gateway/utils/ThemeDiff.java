@@ -0,0 +1,95 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeDiff compares the variables of two themes with one linear merge over their name-sorted arrays.
+ * <p>
+ * A variable present in both themes is "unchanged" if its raw value is the same, "equivalent" if the raw values
+ * differ but resolve to the same value or color (for example <tt>#fff</tt> and <tt>var(--white)</tt>), and "changed"
+ * otherwise. Variables present in only one theme are "added" or "removed" relative to the base theme.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeDiff {
+
+	private ThemeDiff() {
+	}
+
+	/**
+	 * Compares two themes.
+	 *
+	 * @param base The variables of the base theme.
+	 * @param compare The variables of the theme compared against the base.
+	 * @return A JsonObject with the "added", "removed", "changed" and "equivalent" variables, each sorted by name,
+	 * and the number of "unchanged" variables.
+	 */
+	public static JsonObject diff(ThemeVariables base, ThemeVariables compare) {
+		JsonArray added = new JsonArray();
+		JsonArray removed = new JsonArray();
+		JsonArray changed = new JsonArray();
+		JsonArray equivalent = new JsonArray();
+		int unchanged = 0;
+
+		int i = 0;
+		int j = 0;
+		while (i < base.names.length || j < compare.names.length) {
+			int order = i == base.names.length ? 1
+				: j == compare.names.length ? -1
+				: base.names[i].compareTo(compare.names[j]);
+
+			if (order < 0) {
+				removed.add(single(base, i++));
+			} else if (order > 0) {
+				added.add(single(compare, j++));
+			} else {
+				boolean sameRaw = base.rawValues[i].equals(compare.rawValues[j]);
+				boolean sameResolved = sameResolved(base.resolved[i], compare.resolved[j]);
+				if (sameRaw && sameResolved) {
+					unchanged++;
+				} else {
+					JsonObject variable = new JsonObject();
+					variable.addProperty("name", base.names[i]);
+					variable.addProperty("baseValue", base.rawValues[i]);
+					variable.addProperty("compareValue", compare.rawValues[j]);
+					variable.add("baseResolved", base.resolved[i]);
+					variable.add("compareResolved", compare.resolved[j]);
+					(sameResolved ? equivalent : changed).add(variable);
+				}
+				i++;
+				j++;
+			}
+		}
+
+		JsonObject result = new JsonObject();
+		result.add("added", added);
+		result.add("removed", removed);
+		result.add("changed", changed);
+		result.add("equivalent", equivalent);
+		result.addProperty("unchanged", unchanged);
+		return result;
+	}
+
+	private static JsonObject single(ThemeVariables variables, int index) {
+		JsonObject variable = new JsonObject();
+		variable.addProperty("name", variables.names[index]);
+		variable.addProperty("value", variables.rawValues[index]);
+		variable.add("resolved", variables.resolved[index]);
+		return variable;
+	}
+
+	/**
+	 * Two resolved variables are the same if they are the same color, or failing that, the same value. Two variables
+	 * that both failed to resolve are only the same if they failed for the same reason.
+	 */
+	private static boolean sameResolved(JsonObject base, JsonObject compare) {
+		JsonElement baseArgb = base.get("argb");
+		JsonElement compareArgb = compare.get("argb");
+		if (baseArgb != null && compareArgb != null) {
+			return baseArgb.getAsInt() == compareArgb.getAsInt();
+		}
+		return base.equals(compare);
+	}
+}
@@ -0,0 +1,115 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeEntry is the cached result of reading one top-level entry of the themes directory.
+ * 
+ * @author Aaron Rai
+ */
+public class ThemeEntry {
+	private final String entryName;
+	private final boolean directory;
+	private final JsonObject variables;
+	private final Set<Path> files;
+	private final Set<String> dependencies;
+	private JsonObject resolved;
+	private ThemeVariables sortedVariables;
+
+	/**
+	 * Constructor for the ThemeEntry.
+	 * 
+	 * @param entryName The file name of the entry directly under the themes directory.
+	 * @param directory True if the entry is a theme directory, false if it is a root-level CSS file.
+	 * @param variables The variables of a root-level file, or the variables of each file in a theme directory.
+	 * @param files The CSS files read for this entry.
+	 */
+	public ThemeEntry(String entryName, boolean directory, JsonObject variables, Set<Path> files) {
+		this(entryName, directory, variables, files, Collections.singleton(entryName));
+	}
+
+	/**
+	 * Constructor for the ThemeEntry.
+	 * 
+	 * @param entryName The file name of the entry directly under the themes directory.
+	 * @param directory True if the entry is a theme directory, false if it is a root-level CSS file.
+	 * @param variables The variables of a root-level file, or the variables of each file read for this entry.
+	 * @param files The CSS files read for this entry, including the files it imports.
+	 * @param dependencies The names of the top-level entries holding the files this entry reads, including files it
+	 * imports, so the entry can be re-read when any of them changes.
+	 */
+	public ThemeEntry(String entryName, boolean directory, JsonObject variables, Set<Path> files, Set<String> dependencies) {
+		this.entryName = entryName;
+		this.directory = directory;
+		this.variables = variables;
+		this.files = Collections.unmodifiableSet(files);
+		this.dependencies = Collections.unmodifiableSet(dependencies);
+	}
+
+	public String getEntryName() {
+		return entryName;
+	}
+
+	/**
+	 * @return The theme name, which is the entry name without the .css extension for root-level files.
+	 */
+	public String getThemeName() {
+		return directory ? entryName : entryName.replace(".css", "");
+	}
+
+	public boolean isDirectory() {
+		return directory;
+	}
+
+	public JsonObject getVariables() {
+		return variables;
+	}
+
+	public int getFileCount() {
+		return files.size();
+	}
+
+	/**
+	 * @return The CSS files read for this entry, including the files it imports. A file imported by several entries
+	 * is listed by each of them.
+	 */
+	public Set<Path> getFiles() {
+		return files;
+	}
+
+	/**
+	 * @return The names of the top-level entries whose files this entry reads, including its own name.
+	 */
+	public Set<String> getDependencies() {
+		return dependencies;
+	}
+
+	/**
+	 * Returns the resolved value and color of every variable in this entry, resolving them on first use. Entries
+	 * are replaced rather than modified when their files change, so the result stays valid for the entry's lifetime.
+	 * 
+	 * @return The resolved variables, as described by {@link ThemeResolver#resolve(ThemeEntry)}.
+	 */
+	public synchronized JsonObject getResolved() {
+		if (resolved == null) {
+			resolved = ThemeResolver.resolve(this);
+		}
+		return resolved;
+	}
+
+	/**
+	 * Returns the merged raw and resolved variables of this entry sorted by name, building them on first use.
+	 * 
+	 * @return The sorted variables, as used by {@link ThemeDiff}.
+	 */
+	public synchronized ThemeVariables getSortedVariables() {
+		if (sortedVariables == null) {
+			sortedVariables = new ThemeVariables(ThemeResolver.mergeVariables(this), getResolved());
+		}
+		return sortedVariables;
+	}
+}
@@ -0,0 +1,183 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.stream.JsonWriter;
+
+/**
+ * ThemeExporter writes the raw and resolved variables of every theme as JSON, CSV or CSS. Variables are written one
+ * at a time straight from each theme's {@link ThemeVariables}, so no intermediate tree is built. Memory use does not
+ * depend on the size of the export, and output starts right away.
+ *
+ * @author Aaron Rai
+ */
+public class ThemeExporter {
+
+	/**
+	 * The supported export formats.
+	 */
+	public enum Format {
+		JSON("application/json", "json"),
+		CSV("text/csv", "csv"),
+		CSS("text/css", "css");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * @param name The format name, in any case.
+		 * @return The matching format, or null if there is none.
+		 */
+		public static Format fromName(String name) {
+			for (Format format : values()) {
+				if (format.name().equalsIgnoreCase(name)) {
+					return format;
+				}
+			}
+			return null;
+		}
+	}
+
+	private ThemeExporter() {
+	}
+
+	/**
+	 * Writes the given themes in the given format.
+	 *
+	 * @param format The format to write.
+	 * @param version The version of the theme data being exported.
+	 * @param themes The themes to export, keyed and ordered by theme name.
+	 * @param writer The writer to write to. It is flushed but not closed.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	public static void export(Format format, long version, Map<String, ThemeEntry> themes, Writer writer) throws IOException {
+		switch (format) {
+			case JSON:
+				writeJson(version, themes, writer);
+				break;
+			case CSV:
+				writeCsv(themes, writer);
+				break;
+			case CSS:
+				writeCss(version, themes, writer);
+				break;
+		}
+		writer.flush();
+	}
+
+	private static void writeJson(long version, Map<String, ThemeEntry> themes, Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.beginObject();
+		json.name("version").value(version);
+		json.name("themes").beginObject();
+		for (Map.Entry<String, ThemeEntry> theme : themes.entrySet()) {
+			ThemeVariables variables = theme.getValue().getSortedVariables();
+			json.name(theme.getKey()).beginObject();
+			for (int i = 0; i < variables.names.length; i++) {
+				JsonObject resolved = variables.resolved[i];
+				json.name(variables.names[i]).beginObject();
+				json.name("value").value(variables.rawValues[i]);
+				if (resolved.has("value")) {
+					json.name("resolved").value(resolved.get("value").getAsString());
+				}
+				if (resolved.has("argb")) {
+					json.name("argb").value(resolved.get("argb").getAsInt());
+				}
+				if (resolved.has("error")) {
+					json.name("error").value(resolved.get("error").getAsString());
+				}
+				json.endObject();
+			}
+			json.endObject();
+		}
+		json.endObject();
+		json.endObject();
+		json.flush();
+	}
+
+	private static void writeCsv(Map<String, ThemeEntry> themes, Writer writer) throws IOException {
+		writer.write("theme,variable,value,resolved,color,error\r\n");
+		for (Map.Entry<String, ThemeEntry> theme : themes.entrySet()) {
+			ThemeVariables variables = theme.getValue().getSortedVariables();
+			for (int i = 0; i < variables.names.length; i++) {
+				JsonObject resolved = variables.resolved[i];
+				writeCsvField(writer, theme.getKey());
+				writer.write(',');
+				writeCsvField(writer, "--" + variables.names[i]);
+				writer.write(',');
+				writeCsvField(writer, variables.rawValues[i]);
+				writer.write(',');
+				writeCsvField(writer, string(resolved.get("value")));
+				writer.write(',');
+				writeCsvField(writer, resolved.has("argb") ? toHex(resolved.get("argb").getAsInt()) : "");
+				writer.write(',');
+				writeCsvField(writer, string(resolved.get("error")));
+				writer.write("\r\n");
+			}
+		}
+	}
+
+	private static void writeCss(long version, Map<String, ThemeEntry> themes, Writer writer) throws IOException {
+		writer.write("/* Exported by Designer++, theme data version " + version + " */\n");
+		for (Map.Entry<String, ThemeEntry> theme : themes.entrySet()) {
+			ThemeVariables variables = theme.getValue().getSortedVariables();
+			writer.write("\n/* Theme: " + theme.getKey().replace("*/", "* /") + " */\n:root {\n");
+			for (int i = 0; i < variables.names.length; i++) {
+				JsonObject resolved = variables.resolved[i];
+				writer.write("  --");
+				writer.write(variables.names[i]);
+				writer.write(": ");
+				writer.write(variables.rawValues[i]);
+				writer.write(';');
+				String resolvedValue = string(resolved.get("value"));
+				if (!resolvedValue.isEmpty() && !resolvedValue.equals(variables.rawValues[i])) {
+					writer.write(" /* " + resolvedValue.replace("*/", "* /") + " */");
+				} else if (resolved.has("error")) {
+					writer.write(" /* " + resolved.get("error").getAsString().replace("*/", "* /") + " */");
+				}
+				writer.write('\n');
+			}
+			writer.write("}\n");
+		}
+	}
+
+	private static void writeCsvField(Writer writer, String value) throws IOException {
+		boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	private static String string(JsonElement element) {
+		return element == null ? "" : element.getAsString();
+	}
+
+	/**
+	 * Formats a packed ARGB color as a CSS #rrggbbaa hex color.
+	 */
+	private static String toHex(int argb) {
+		return String.format(Locale.ROOT, "#%08x", (argb << 8) | (argb >>> 24));
+	}
+}
@@ -0,0 +1,279 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.dev.bwdesigngroup.designerpp.common.DesignerPlusPlusConstants;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParseException;
+
+/**
+ * ThemeFileIndex remembers the fingerprint (modification time, size and content hash) and parsed contents of every
+ * CSS file read by the {@link CSSFileReader}, and persists them to the module's gateway data folder. A file is only
+ * re-parsed when its fingerprint changed, so gateway restarts and theme edits only pay for the files that differ.
+ * <p>
+ * The modification time and size are checked first. If either changed the file is read and hashed, and if the hash
+ * still matches (for example after a touch or a copy) the previously parsed variables are reused.
+ * <p>
+ * Parsed files are also shared by content: byte-identical files, such as the same variables file copied into several
+ * theme directories, share one {@link ParsedCSSFile}, and files that differ only in formatting or comments share one
+ * variable set. Themes built from the same files therefore hold one copy of those variables instead of one each.
+ * 
+ * @author Aaron Rai
+ */
+public class ThemeFileIndex {
+	private static final Logger logger = LoggerFactory.getLogger(DesignerPlusPlusConstants.MODULE_ID + ".themeFileIndex");
+	public static final String FILE_NAME = "theme-index.json";
+	private static final int FORMAT_VERSION = 2;
+
+	private final Path indexFile;
+	private final ThemeMetrics metrics;
+	private final Map<String, IndexedFile> files = new ConcurrentHashMap<>();
+	private final Map<String, ParsedCSSFile> filesByHash = new ConcurrentHashMap<>();
+	private final Map<JsonObject, JsonObject> variableSets = new ConcurrentHashMap<>();
+	private final Gson gson = new Gson();
+	private volatile boolean dirty;
+
+	/**
+	 * Constructor for the ThemeFileIndex.
+	 * 
+	 * @param indexFile The file the index is persisted to, or null to keep the index in memory only.
+	 * @param metrics The metrics that record parsed files.
+	 */
+	public ThemeFileIndex(Path indexFile, ThemeMetrics metrics) {
+		this.indexFile = indexFile;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Loads the persisted index, if there is one. A missing, unreadable or outdated index is ignored and rebuilt.
+	 */
+	public void load() {
+		if (indexFile == null || !Files.isRegularFile(indexFile)) {
+			return;
+		}
+
+		try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			JsonObject root = gson.fromJson(reader, JsonObject.class);
+			if (root == null || !root.has("version") || root.get("version").getAsInt() != FORMAT_VERSION) {
+				logger.info("Ignoring theme index with an unsupported format: {}", indexFile);
+				return;
+			}
+
+			for (Map.Entry<String, JsonElement> fileEntry : root.getAsJsonObject("files").entrySet()) {
+				JsonObject file = fileEntry.getValue().getAsJsonObject();
+				List<String> imports = new ArrayList<>();
+				for (JsonElement target : file.getAsJsonArray("imports")) {
+					imports.add(target.getAsString());
+				}
+				String hash = file.get("hash").getAsString();
+				files.put(fileEntry.getKey(), new IndexedFile(
+					file.get("modified").getAsLong(),
+					file.get("size").getAsLong(),
+					hash,
+					intern(hash, file.getAsJsonObject("variables"), imports)
+				));
+			}
+			logger.debug("Loaded {} indexed theme files from {}", files.size(), indexFile);
+		} catch (IOException | JsonParseException | IllegalStateException | NullPointerException e) {
+			logger.warn("Unable to load theme index, all theme files will be re-parsed: {}", indexFile, e);
+			files.clear();
+			filesByHash.clear();
+			variableSets.clear();
+		}
+	}
+
+	/**
+	 * Writes the index to disk if it changed since it was loaded or last saved. The file is written to a temporary
+	 * file first and moved into place so a crash never leaves a truncated index behind.
+	 */
+	public void save() {
+		if (indexFile == null || !dirty) {
+			return;
+		}
+		dirty = false;
+
+		JsonObject filesObject = new JsonObject();
+		for (Map.Entry<String, IndexedFile> fileEntry : files.entrySet()) {
+			IndexedFile indexed = fileEntry.getValue();
+			JsonObject file = new JsonObject();
+			file.addProperty("modified", indexed.modified);
+			file.addProperty("size", indexed.size);
+			file.addProperty("hash", indexed.hash);
+			file.add("variables", indexed.parsed.getVariables());
+			JsonArray imports = new JsonArray();
+			for (String target : indexed.parsed.getImports()) {
+				imports.add(target);
+			}
+			file.add("imports", imports);
+			filesObject.add(fileEntry.getKey(), file);
+		}
+		JsonObject root = new JsonObject();
+		root.addProperty("version", FORMAT_VERSION);
+		root.add("files", filesObject);
+
+		try {
+			Files.createDirectories(indexFile.getParent());
+			Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+				gson.toJson(root, writer);
+			}
+			try {
+				Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.debug("Saved {} indexed theme files to {}", files.size(), indexFile);
+		} catch (IOException e) {
+			dirty = true;
+			logger.warn("Unable to save theme index: {}", indexFile, e);
+		}
+	}
+
+	/**
+	 * Returns the variables and imports of a CSS file, parsing it only if its fingerprint changed since it was last
+	 * indexed. Safe to call from multiple threads.
+	 * 
+	 * @param cssFile The path to the CSS file.
+	 * @return The parsed file. Callers must not modify it.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public ParsedCSSFile parse(Path cssFile) throws IOException {
+		String key = cssFile.toAbsolutePath().normalize().toString();
+		BasicFileAttributes attributes = Files.readAttributes(cssFile, BasicFileAttributes.class);
+		long modified = attributes.lastModifiedTime().toMillis();
+		long size = attributes.size();
+
+		IndexedFile indexed = files.get(key);
+		if (indexed != null && indexed.modified == modified && indexed.size == size) {
+			return indexed.parsed;
+		}
+
+		ByteBuffer contents = CSSVariableScanner.readFile(cssFile);
+		String hash = hash(contents.duplicate());
+		ParsedCSSFile parsed;
+		if (indexed != null && indexed.hash.equals(hash)) {
+			parsed = indexed.parsed;
+		} else if ((parsed = filesByHash.get(hash)) != null) {
+			logger.trace("Sharing the parsed contents of an identical file for {}", cssFile);
+		} else {
+			CSSVariableScanner scanner = new CSSVariableScanner(contents);
+			parsed = intern(hash, scanner.scan(), new ArrayList<>(scanner.getImports()));
+			metrics.fileParsed(size);
+			logger.trace("Parsed {} variables and {} imports from {}", parsed.getVariables().size(), parsed.getImports().size(), cssFile);
+		}
+
+		files.put(key, new IndexedFile(modified, size, hash, parsed));
+		dirty = true;
+		return parsed;
+	}
+
+	/**
+	 * Drops the index entries under a directory that were not seen by the last read, i.e. files that were deleted.
+	 * 
+	 * @param scope The directory that was read.
+	 * @param seen The CSS files that were found under that directory.
+	 */
+	public void retain(Path scope, Collection<Path> seen) {
+		String scopeKey = scope.toAbsolutePath().normalize().toString();
+		String prefix = scopeKey + scope.getFileSystem().getSeparator();
+		Set<String> seenKeys = new HashSet<>();
+		for (Path path : seen) {
+			seenKeys.add(path.toAbsolutePath().normalize().toString());
+		}
+		if (files.keySet().removeIf(key -> (key.equals(scopeKey) || key.startsWith(prefix)) && !seenKeys.contains(key))) {
+			dirty = true;
+		}
+		prune();
+	}
+
+	/**
+	 * Returns the shared parsed file for the given content hash, creating it if no file with that hash is indexed.
+	 * The variables are shared with any other file that declares exactly the same variables.
+	 */
+	private ParsedCSSFile intern(String hash, JsonObject variables, List<String> imports) {
+		return filesByHash.computeIfAbsent(hash, key -> {
+			JsonObject shared = variableSets.putIfAbsent(variables, variables);
+			return new ParsedCSSFile(shared == null ? variables : shared, imports);
+		});
+	}
+
+	/**
+	 * Forgets the shared contents and variable sets that no indexed file uses any more, e.g. because the files were
+	 * deleted or changed.
+	 */
+	private void prune() {
+		Set<String> liveHashes = new HashSet<>();
+		Set<JsonObject> liveSets = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (IndexedFile indexed : files.values()) {
+			liveHashes.add(indexed.hash);
+			liveSets.add(indexed.parsed.getVariables());
+		}
+		filesByHash.keySet().retainAll(liveHashes);
+		variableSets.values().removeIf(variables -> !liveSets.contains(variables));
+	}
+
+	/**
+	 * @return The number of files currently in the index.
+	 */
+	public int size() {
+		return files.size();
+	}
+
+	private static String hash(ByteBuffer contents) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(contents);
+			StringBuilder hex = new StringBuilder(64);
+			for (byte b : digest.digest()) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * The fingerprint and parsed contents of one CSS file.
+	 */
+	private static class IndexedFile {
+		final long modified;
+		final long size;
+		final String hash;
+		final ParsedCSSFile parsed;
+
+		IndexedFile(long modified, long size, String hash, ParsedCSSFile parsed) {
+			this.modified = modified;
+			this.size = size;
+			this.hash = hash;
+			this.parsed = parsed;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dev.bwdesigngroup.designerpp.common.utils.ColorValueCache;
+import org.dev.bwdesigngroup.designerpp.common.utils.ParseColor;
+import org.dev.bwdesigngroup.designerpp.common.utils.VariableResolver;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeResolver resolves the var() references of a whole theme on the gateway, so the designer receives the final
+ * value and packed ARGB color of every variable and does not have to parse anything when it renders.
+ * 
+ * @author Aaron Rai
+ */
+public class ThemeResolver {
+
+	private ThemeResolver() {
+	}
+
+	/**
+	 * Resolves every variable of a theme entry. The variables of all the files read for the entry share one
+	 * namespace so that references across files resolve, with files later in cascade order taking precedence.
+	 * 
+	 * @param entry The theme entry to resolve.
+	 * @return A JsonObject keyed by variable name. Each value has the resolved "value" and, if it is a color, its
+	 * "argb" int. Variables that cannot be resolved have an "error" of "cycle" or "unresolved" instead.
+	 */
+	public static JsonObject resolve(ThemeEntry entry) {
+		Map<String, String> rawValues = mergeVariables(entry);
+		VariableResolver resolver = new VariableResolver(rawValues);
+		JsonObject resolved = new JsonObject();
+		for (Map.Entry<String, String> variable : resolver.resolveAll().entrySet()) {
+			String value = variable.getValue();
+			JsonObject result = new JsonObject();
+			if (value == null) {
+				result.addProperty("error", resolver.isCyclic(variable.getKey()) ? "cycle" : "unresolved");
+			} else {
+				result.addProperty("value", value);
+				long argb = ColorValueCache.parseArgb(value);
+				if (argb != ParseColor.NOT_A_COLOR) {
+					result.addProperty("argb", (int) argb);
+				}
+			}
+			resolved.add(variable.getKey(), result);
+		}
+		return resolved;
+	}
+
+	/**
+	 * Merges the variables of a theme entry into one namespace, the way {@link #resolve(ThemeEntry)} sees them.
+	 * 
+	 * @param entry The theme entry.
+	 * @return The raw variable values keyed by variable name, with files later in cascade order taking precedence.
+	 */
+	public static Map<String, String> mergeVariables(ThemeEntry entry) {
+		Map<String, String> rawValues = new LinkedHashMap<>();
+		JsonObject variables = entry.getVariables();
+		if (entry.isDirectory() || isPerFile(variables)) {
+			for (Map.Entry<String, JsonElement> file : variables.entrySet()) {
+				addVariables(file.getValue().getAsJsonObject(), rawValues);
+			}
+		} else {
+			addVariables(variables, rawValues);
+		}
+		return rawValues;
+	}
+
+	/**
+	 * A root-level file that imports other files holds the variables of each file it reads, like a directory does.
+	 */
+	private static boolean isPerFile(JsonObject variables) {
+		for (Map.Entry<String, JsonElement> member : variables.entrySet()) {
+			return member.getValue().isJsonObject();
+		}
+		return false;
+	}
+
+	private static void addVariables(JsonObject variables, Map<String, String> rawValues) {
+		for (Map.Entry<String, JsonElement> variable : variables.entrySet()) {
+			// Re-insert so that an overriding definition moves to its latest position
+			rawValues.remove(variable.getKey());
+			rawValues.put(variable.getKey(), variable.getValue().getAsString());
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * ThemeVariables holds the variables of one theme as parallel arrays sorted by name, so two themes can be compared
+ * with a single linear merge.
+ * 
+ * @author Aaron Rai
+ */
+public class ThemeVariables {
+	final String[] names;
+	final String[] rawValues;
+	final JsonObject[] resolved;
+
+	/**
+	 * Constructor for the ThemeVariables.
+	 * 
+	 * @param rawValues The merged raw values keyed by variable name.
+	 * @param resolved The resolved variables, as produced by {@link ThemeResolver#resolve(ThemeEntry)}.
+	 */
+	ThemeVariables(Map<String, String> rawValues, JsonObject resolved) {
+		this.names = rawValues.keySet().toArray(new String[0]);
+		Arrays.sort(names);
+		this.rawValues = new String[names.length];
+		this.resolved = new JsonObject[names.length];
+		for (int i = 0; i < names.length; i++) {
+			this.rawValues[i] = rawValues.get(names[i]);
+			JsonElement value = resolved.get(names[i]);
+			this.resolved[i] = value == null ? new JsonObject() : value.getAsJsonObject();
+		}
+	}
+
+	/**
+	 * @return The number of variables.
+	 */
+	public int size() {
+		return names.length;
+	}
+}
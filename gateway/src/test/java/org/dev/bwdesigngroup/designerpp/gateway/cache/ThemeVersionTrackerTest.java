@@ -0,0 +1,164 @@
+package org.dev.bwdesigngroup.designerpp.gateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParser;
+
+/**
+ * Tests for {@link ThemeVersionTracker}. Deltas are applied the way the designer applies them, and the result must
+ * always equal the tracker's current tree.
+ *
+ * @author Aaron Rai
+ */
+class ThemeVersionTrackerTest {
+	private static final long BASE_VERSION = 1000;
+
+	private static JsonObject json(String text) {
+		return JsonParser.parseString(text).getAsJsonObject();
+	}
+
+	/**
+	 * Applies a response of {@link ThemeVersionTracker#since(long)} to a client copy of the themes.
+	 */
+	private static JsonObject apply(JsonObject copy, JsonObject response) {
+		if (response.get("unchanged").getAsBoolean()) {
+			return copy;
+		}
+		if (response.get("full").getAsBoolean()) {
+			return response.getAsJsonObject("themes").deepCopy();
+		}
+
+		JsonObject result = copy.deepCopy();
+		Set<String> replaced = new HashSet<>();
+		for (JsonElement name : response.getAsJsonArray("replacedThemes")) {
+			replaced.add(name.getAsString());
+		}
+		for (Map.Entry<String, JsonElement> themeEntry : response.getAsJsonObject("themes").entrySet()) {
+			JsonObject theme = replaced.contains(themeEntry.getKey()) || !result.has(themeEntry.getKey())
+				? new JsonObject()
+				: result.getAsJsonObject(themeEntry.getKey());
+			for (Map.Entry<String, JsonElement> member : themeEntry.getValue().getAsJsonObject().entrySet()) {
+				theme.add(member.getKey(), member.getValue());
+			}
+			result.add(themeEntry.getKey(), theme);
+		}
+		for (Map.Entry<String, JsonElement> removed : response.getAsJsonObject("removedFiles").entrySet()) {
+			for (JsonElement member : removed.getValue().getAsJsonArray()) {
+				result.getAsJsonObject(removed.getKey()).remove(member.getAsString());
+			}
+		}
+		for (JsonElement removed : response.getAsJsonArray("removedThemes")) {
+			result.remove(removed.getAsString());
+		}
+		return result;
+	}
+
+	@Test
+	void unknownVersionGetsFullTree() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		JsonObject themes = json("{\"light\":{\"a.css\":{\"x\":\"1\"}}}");
+		long version = tracker.update(themes);
+
+		assertEquals(BASE_VERSION + 1, version);
+		for (long since : new long[] {0, BASE_VERSION - 1, version + 1}) {
+			JsonObject response = tracker.since(since);
+			assertTrue(response.get("full").getAsBoolean());
+			assertEquals(themes, response.getAsJsonObject("themes"));
+		}
+	}
+
+	@Test
+	void currentVersionIsUnchanged() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		long version = tracker.update(json("{\"light\":{\"a.css\":{\"x\":\"1\"}}}"));
+
+		assertEquals(version, tracker.update(json("{\"light\":{\"a.css\":{\"x\":\"1\"}}}")));
+		assertTrue(tracker.since(version).get("unchanged").getAsBoolean());
+	}
+
+	@Test
+	void deltaHoldsOnlyChangedAndRemovedMembers() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		long first = tracker.update(json("{\"light\":{\"a.css\":{\"x\":\"1\"},\"b.css\":{\"y\":\"2\"}},"
+			+ "\"dark\":{\"c.css\":{\"z\":\"3\"}}}"));
+		tracker.update(json("{\"light\":{\"a.css\":{\"x\":\"9\"},\"n.css\":{\"w\":\"4\"}},"
+			+ "\"dark\":{\"c.css\":{\"z\":\"3\"}}}"));
+
+		JsonObject response = tracker.since(first);
+		assertFalse(response.get("full").getAsBoolean());
+		assertEquals(json("{\"light\":{\"a.css\":{\"x\":\"9\"},\"n.css\":{\"w\":\"4\"}}}"), response.getAsJsonObject("themes"));
+		JsonArray removed = response.getAsJsonObject("removedFiles").getAsJsonArray("light");
+		assertEquals(1, removed.size());
+		assertEquals("b.css", removed.get(0).getAsString());
+		assertEquals(0, response.getAsJsonArray("removedThemes").size());
+		assertEquals(0, response.getAsJsonArray("replacedThemes").size());
+		assertEquals(tracker.getVersion(), tracker.getThemeVersion("light"));
+		assertEquals(first, tracker.getThemeVersion("dark"));
+	}
+
+	@Test
+	void removedThemeIsReported() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		long first = tracker.update(json("{\"light\":{\"a.css\":{}},\"dark\":{\"b.css\":{}}}"));
+		tracker.update(json("{\"light\":{\"a.css\":{}}}"));
+
+		JsonObject response = tracker.since(first);
+		assertEquals(1, response.getAsJsonArray("removedThemes").size());
+		assertEquals("dark", response.getAsJsonArray("removedThemes").get(0).getAsString());
+		assertEquals(0, tracker.getThemeVersion("dark"));
+	}
+
+	@Test
+	void themeRemovedAndAddedAgainIsReplaced() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		JsonObject original = json("{\"dark\":{\"a.css\":{\"x\":\"1\"},\"b.css\":{\"y\":\"2\"}}}");
+		long first = tracker.update(original);
+		tracker.update(json("{}"));
+		JsonObject readded = json("{\"dark\":{\"a.css\":{\"x\":\"5\"}}}");
+		long last = tracker.update(readded);
+
+		JsonObject response = tracker.since(first);
+		assertFalse(response.get("full").getAsBoolean());
+		assertEquals(0, response.getAsJsonArray("removedThemes").size());
+		assertEquals(1, response.getAsJsonArray("replacedThemes").size());
+		assertEquals("dark", response.getAsJsonArray("replacedThemes").get(0).getAsString());
+		// Without the replacement, b.css would survive in the client copy forever
+		assertEquals(readded, apply(original, response));
+		assertTrue(tracker.since(last).get("unchanged").getAsBoolean());
+	}
+
+	@Test
+	void everyDeltaConvergesOnTheCurrentTree() {
+		ThemeVersionTracker tracker = new ThemeVersionTracker(BASE_VERSION);
+		String[] trees = {
+			"{\"light\":{\"a.css\":{\"x\":\"1\"}},\"dark\":{\"b.css\":{\"y\":\"2\"}}}",
+			"{\"light\":{\"a.css\":{\"x\":\"2\"},\"c.css\":{}},\"dark\":{\"b.css\":{\"y\":\"2\"}}}",
+			"{\"light\":{\"c.css\":{}}}",
+			"{\"light\":{\"c.css\":{}},\"dark\":{\"d.css\":{\"q\":\"1\"}}}",
+			"{\"dark\":{\"d.css\":{\"q\":\"2\"}},\"root\":{\"v\":\"red\"}}",
+			"{\"light\":{\"a.css\":{\"x\":\"3\"}},\"dark\":{\"b.css\":{\"y\":\"2\"}},\"root\":{\"v\":\"blue\",\"w\":\"1\"}}",
+		};
+		long[] versions = new long[trees.length];
+		JsonObject[] copies = new JsonObject[trees.length];
+		for (int i = 0; i < trees.length; i++) {
+			copies[i] = json(trees[i]);
+			versions[i] = tracker.update(json(trees[i]));
+		}
+
+		JsonObject current = json(trees[trees.length - 1]);
+		for (int i = 0; i < trees.length; i++) {
+			assertEquals(current, apply(copies[i], tracker.since(versions[i])), "delta from version " + i);
+		}
+	}
+}
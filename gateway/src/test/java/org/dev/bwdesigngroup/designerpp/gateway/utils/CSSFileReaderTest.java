@@ -0,0 +1,130 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import org.dev.bwdesigngroup.designerpp.gateway.cache.ThemeCache;
+import org.dev.bwdesigngroup.designerpp.gateway.metrics.ThemeMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Tests for {@link CSSFileReader}, on a themes directory laid out like Perspective's, where root-level theme files
+ * import the files of theme directories.
+ *
+ * @author Aaron Rai
+ */
+class CSSFileReaderTest {
+	@TempDir
+	Path themesPath;
+
+	@TempDir
+	Path dataPath;
+
+	private void write(String relativePath, String css) throws IOException {
+		Path file = themesPath.resolve(relativePath);
+		Files.createDirectories(file.getParent());
+		Files.write(file, css.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private SortedMap<String, ThemeEntry> read() throws IOException {
+		try (CSSFileReader reader = new CSSFileReader(new ThemeFileIndex(dataPath.resolve(ThemeFileIndex.FILE_NAME), new ThemeMetrics()), 2)) {
+			return reader.readThemeEntries(themesPath, null);
+		}
+	}
+
+	@BeforeEach
+	void writeThemes() throws IOException {
+		write("dark/index.css", "@import \"variables.css\";\n:root { --a: 1; }");
+		write("dark/variables.css", ":root { --b: 2; }");
+		write("dark-warm/extra.css", ":root { --d: 4; }");
+		write("dark-warm.css", "@import 'dark/index.css';\n@import url(dark-warm/extra.css);\n:root { --c: 3; }");
+		write("light.css", ":root { --e: 5; }");
+	}
+
+	@Test
+	void readsEveryTopLevelEntry() throws IOException {
+		SortedMap<String, ThemeEntry> entries = read();
+
+		assertEquals(Arrays.asList("dark", "dark-warm", "dark-warm.css", "light.css"), new ArrayList<>(entries.keySet()));
+		assertTrue(entries.get("dark").isDirectory());
+		assertFalse(entries.get("light.css").isDirectory());
+		assertEquals("dark-warm", entries.get("dark-warm.css").getThemeName());
+		assertEquals("5", entries.get("light.css").getVariables().get("e").getAsString());
+	}
+
+	@Test
+	void followsImportsBeforeTheImportingFile() throws IOException {
+		ThemeEntry entry = read().get("dark-warm.css");
+
+		List<String> order = new ArrayList<>(entry.getVariables().keySet());
+		assertEquals(Arrays.asList("dark/variables.css", "dark/index.css", "dark-warm/extra.css", "dark-warm.css"), order);
+		assertEquals(new TreeSet<>(Arrays.asList("dark", "dark-warm", "dark-warm.css")), entry.getDependencies());
+		assertEquals(4, entry.getFileCount());
+	}
+
+	@Test
+	void listsImportedFilesOfDirectories() throws IOException {
+		ThemeEntry entry = read().get("dark");
+
+		JsonObject variables = entry.getVariables();
+		assertEquals(Arrays.asList("variables.css", "index.css"), new ArrayList<>(variables.keySet()));
+		assertEquals(Collections.singleton("dark"), entry.getDependencies());
+	}
+
+	@Test
+	void sharedImportsAreOneFile() throws IOException {
+		Set<Path> files = new HashSet<>();
+		int perEntry = 0;
+		for (ThemeEntry entry : read().values()) {
+			files.addAll(entry.getFiles());
+			perEntry += entry.getFileCount();
+		}
+
+		assertEquals(5, files.size());
+		assertEquals(8, perEntry);
+	}
+
+	@Test
+	void toleratesImportCyclesAndIgnoresForeignImports() throws IOException {
+		write("loop-a.css", "@import 'loop-b.css';\n:root { --x: a; }");
+		write("loop-b.css", "@import 'loop-a.css';\n@import url(https://example.com/remote.css);\n"
+			+ "@import '../outside.css';\n@import 'missing.css';\n:root { --y: b; }");
+
+		SortedMap<String, ThemeEntry> entries = read();
+
+		assertEquals(Arrays.asList("loop-b.css", "loop-a.css"), new ArrayList<>(entries.get("loop-a.css").getVariables().keySet()));
+		assertEquals(2, entries.get("loop-b.css").getFileCount());
+		assertTrue(entries.get("loop-b.css").getDependencies().contains("missing.css"));
+	}
+
+	@Test
+	void cacheCountsEachFileOnce() throws IOException {
+		ThemeCache cache = new ThemeCache(themesPath, dataPath);
+		try {
+			JsonObject cssData = cache.getCSSData();
+
+			assertTrue(cssData.get("success").getAsBoolean());
+			assertEquals(5, cssData.get("filesProcessed").getAsInt());
+		} finally {
+			cache.stop();
+		}
+	}
+}
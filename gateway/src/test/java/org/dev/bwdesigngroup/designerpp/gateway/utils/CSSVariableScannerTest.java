@@ -0,0 +1,146 @@
+package org.dev.bwdesigngroup.designerpp.gateway.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Tests for {@link CSSVariableScanner}.
+ *
+ * @author Aaron Rai
+ */
+class CSSVariableScannerTest {
+
+	private static CSSVariableScanner scanner(String css) {
+		return new CSSVariableScanner(ByteBuffer.wrap(css.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static JsonObject scan(String css) {
+		return scanner(css).scan();
+	}
+
+	@Test
+	void readsVariablesDeclaredInRoot() {
+		JsonObject variables = scan(":root {\n  --primary: #1e88e5;\n  --spacing:4px\n}");
+
+		assertEquals(2, variables.size());
+		assertEquals("#1e88e5", variables.get("primary").getAsString());
+		assertEquals("4px", variables.get("spacing").getAsString());
+	}
+
+	@Test
+	void ignoresVariablesOutsideRoot() {
+		JsonObject variables = scan(".card { --inner: red; } :root { --outer: blue; } body { color: red; }");
+
+		assertEquals(1, variables.size());
+		assertEquals("blue", variables.get("outer").getAsString());
+	}
+
+	@Test
+	void laterDeclarationsWin() {
+		JsonObject variables = scan(":root { --a: red; } :root { --a: blue; }");
+
+		assertEquals("blue", variables.get("a").getAsString());
+	}
+
+	@Test
+	void skipsComments() {
+		JsonObject variables = scan("/* :root { --commented: red; } */\n"
+			+ ":root { /* --inside: red; */ --a: /* note */ blue; --b: red /* trailing */; }");
+
+		assertFalse(variables.has("commented"));
+		assertFalse(variables.has("inside"));
+		assertEquals("blue", variables.get("a").getAsString());
+		assertEquals("red", variables.get("b").getAsString());
+	}
+
+	@Test
+	void keepsSeparatorsInsideStrings() {
+		JsonObject variables = scan(":root { --font: 'a; b', \"c } d\"; --next: 1px; }");
+
+		assertEquals("'a; b', \"c } d\"", variables.get("font").getAsString());
+		assertEquals("1px", variables.get("next").getAsString());
+	}
+
+	@Test
+	void keepsNestedBlocksInsideValues() {
+		JsonObject variables = scan(":root { --shadow: 0 1px rgba(0, 0, 0, 0.5); --block: { color: red; }; --after: x; }");
+
+		assertEquals("0 1px rgba(0, 0, 0, 0.5)", variables.get("shadow").getAsString());
+		assertEquals("{ color: red; }", variables.get("block").getAsString());
+		assertEquals("x", variables.get("after").getAsString());
+	}
+
+	@Test
+	void dropsImportantFlag() {
+		JsonObject variables = scan(":root { --a: red !important; --b: blue!IMPORTANT; }");
+
+		assertEquals("red", variables.get("a").getAsString());
+		assertEquals("blue", variables.get("b").getAsString());
+	}
+
+	@Test
+	void readsRootInsideGroupingAtRules() {
+		JsonObject variables = scan("@media (prefers-color-scheme: dark) { :root { --media: 1; } }\n"
+			+ "@supports (display: grid) { @layer base { :root { --nested: 2; } } }\n"
+			+ "@keyframes spin { from { --frame: 3; } }");
+
+		assertEquals("1", variables.get("media").getAsString());
+		assertEquals("2", variables.get("nested").getAsString());
+		assertFalse(variables.has("frame"));
+	}
+
+	@Test
+	void readsRootInSelectorLists() {
+		JsonObject variables = scan("html, :root { --a: 1; } :root.dark { --b: 2; }");
+
+		assertEquals("1", variables.get("a").getAsString());
+	}
+
+	@Test
+	void recordsImportTargetsInAllForms() {
+		CSSVariableScanner scanner = scanner("@charset \"UTF-8\";\n"
+			+ "@import \"dark/variables.css\";\n"
+			+ "@import 'dark/colors.css' screen;\n"
+			+ "@import url(dark/fonts.css);\n"
+			+ "@import url(\"dark/spacing.css\") layer(base);\n"
+			+ "/* @import 'ignored.css'; */\n"
+			+ ":root { --a: 1; }\n");
+		scanner.scan();
+
+		List<String> expected = Arrays.asList("dark/variables.css", "dark/colors.css", "dark/fonts.css", "dark/spacing.css");
+		assertEquals(expected, scanner.getImports());
+	}
+
+	@Test
+	void ignoresByteOrderMarkAndEmptyInput() {
+		assertEquals(0, scan("").size());
+		assertEquals("1", scan("﻿:root { --a: 1; }").get("a").getAsString());
+		assertEquals(Collections.emptyList(), scanner("").getImports());
+	}
+
+	@Test
+	void toleratesUnterminatedInput() {
+		JsonObject variables = scan(":root { --a: 1; --b: 'open");
+
+		assertEquals("1", variables.get("a").getAsString());
+		assertTrue(variables.size() <= 2);
+	}
+
+	@Test
+	void decodesNonAsciiValues() {
+		JsonObject variables = scan(":root { --label: \"Grüße ✓\"; }");
+
+		assertEquals("\"Grüße ✓\"", variables.get("label").getAsString());
+	}
+}